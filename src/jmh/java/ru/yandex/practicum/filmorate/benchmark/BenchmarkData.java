@@ -0,0 +1,156 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
+import ru.yandex.practicum.filmorate.storage.film.impl.*;
+import ru.yandex.practicum.filmorate.storage.user.impl.FriendDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.impl.UserDbStorage;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+
+@State(Scope.Benchmark)
+public class BenchmarkData {
+    private static final int LIKES_PER_USER = 20;
+    private static final int FRIENDS_PER_USER = 20;
+
+    @Param("10000")
+    public int films;
+
+    @Param("10000")
+    public int users;
+
+    public ConfigurableApplicationContext context;
+    public FilmDbStorage filmDbStorage;
+    public InMemoryFilmStorage inMemoryFilmStorage;
+    public InMemoryLikeStorage inMemoryLikeStorage;
+    public LikeDbStorage likeDbStorage;
+    public FriendDbStorage friendDbStorage;
+    public FilmCache filmCache;
+    public LikeMatrix likeMatrix;
+
+    private final Random random = new Random(42);
+    private long nextLikeUser;
+    private long nextLikeFilm;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN");
+        filmDbStorage = context.getBean(FilmDbStorage.class);
+        likeDbStorage = context.getBean(LikeDbStorage.class);
+        friendDbStorage = context.getBean(FriendDbStorage.class);
+        filmCache = context.getBean(FilmCache.class);
+        likeMatrix = context.getBean(LikeMatrix.class);
+        FilmLeaderboard inMemoryLeaderboard = new FilmLeaderboard();
+        ChangeVersions inMemoryVersions = new ChangeVersions();
+        inMemoryFilmStorage = new InMemoryFilmStorage(new InMemoryGenreStorage(), new InMemoryMpaStorage(), inMemoryLeaderboard,
+                new FilmSearchIndex(), inMemoryVersions);
+        inMemoryLikeStorage = new InMemoryLikeStorage(inMemoryLeaderboard, new LikeMatrix(),
+                new FilmTrends(Duration.ofDays(7)), inMemoryVersions);
+
+        seedUsers(context.getBean(JdbcTemplate.class));
+        context.getBean(UserDbStorage.class).loadIds();
+        seedFilms();
+        seedLikes();
+        nextLikeUser = users / 2 + 1;
+        nextLikeFilm = 1;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    public long randomFilmId() {
+        return 1 + random.nextInt(films);
+    }
+
+    public long randomUserId() {
+        return 1 + random.nextInt(users);
+    }
+
+    public synchronized Like nextUnusedLike() {
+        Like like = new Like(nextLikeFilm, nextLikeUser);
+        if (++nextLikeFilm > films) {
+            nextLikeFilm = 1;
+            if (++nextLikeUser > users) {
+                nextLikeUser = users / 2 + 1;
+            }
+        }
+        return like;
+    }
+
+    private void seedUsers(JdbcTemplate jdbcTemplate) {
+        List<Object[]> userRows = new ArrayList<>();
+        for (int i = 1; i <= users; i++) {
+            userRows.add(new Object[]{"user" + i + "@mail.ru", "user" + i, "User " + i, Date.valueOf(LocalDate.of(1990, 1, 1))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users(email, login, name, birthday) VALUES (?, ?, ?, ?)", userRows);
+
+        List<Object[]> friendRows = new ArrayList<>();
+        for (int i = 1; i <= users; i++) {
+            Set<Integer> friends = new HashSet<>();
+            while (friends.size() < Math.min(FRIENDS_PER_USER, users - 1)) {
+                int friendId = 1 + random.nextInt(users);
+                if (friendId != i && friends.add(friendId)) {
+                    friendRows.add(new Object[]{i, friendId});
+                }
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO friends(user_id, friend_id) VALUES (?, ?)", friendRows);
+    }
+
+    private void seedFilms() {
+        List<Film> batch = new ArrayList<>();
+        for (int i = 1; i <= films; i++) {
+            List<Genre> genres = new ArrayList<>();
+            for (int g = 0; g < 1 + random.nextInt(3); g++) {
+                genres.add(new Genre(1 + random.nextInt(6), null));
+            }
+            batch.add(Film.builder()
+                    .name("Film " + i)
+                    .description("Description " + i)
+                    .releaseDate(LocalDate.of(1950 + random.nextInt(70), 1, 1))
+                    .duration(60 + random.nextInt(120))
+                    .mpa(Mpa.builder().id(1 + random.nextInt(5)).build())
+                    .genres(genres)
+                    .build());
+        }
+        filmDbStorage.createAll(batch);
+
+        for (Film film : batch) {
+            inMemoryFilmStorage.create(film.toBuilder().id(null).build());
+        }
+    }
+
+    private void seedLikes() {
+        List<Like> likes = new ArrayList<>();
+        for (int i = 1; i <= users / 2; i++) {
+            long userId = i;
+            Set<Long> liked = new HashSet<>();
+            while (liked.size() < Math.min(LIKES_PER_USER, films)) {
+                long filmId = randomFilmId();
+                if (liked.add(filmId)) {
+                    likes.add(new Like(filmId, userId));
+                    inMemoryLikeStorage.addLike(filmId, userId);
+                }
+            }
+        }
+        likeDbStorage.addLikes(likes);
+    }
+}
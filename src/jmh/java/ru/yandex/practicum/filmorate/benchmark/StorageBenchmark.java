@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+
+    @Benchmark
+    public Collection<Film> dbGetPopularFilms(BenchmarkData data) {
+        return data.filmDbStorage.getPopularFilms(10);
+    }
+
+    @Benchmark
+    public Collection<Film> dbFindAll(BenchmarkData data) {
+        return data.filmDbStorage.findAll();
+    }
+
+    @Benchmark
+    public Optional<Film> dbGetFilmCached(BenchmarkData data) {
+        return data.filmDbStorage.getFilm(data.randomFilmId());
+    }
+
+    @Benchmark
+    public Optional<Film> dbGetFilmUncached(BenchmarkData data) {
+        long filmId = data.randomFilmId();
+        data.filmCache.invalidate(filmId);
+        return data.filmDbStorage.getFilm(filmId);
+    }
+
+    @Benchmark
+    public List<Film> dbSearchFilms(BenchmarkData data) {
+        return data.filmDbStorage.search("film " + data.randomFilmId() / 10, 10);
+    }
+
+    @Benchmark
+    public List<Long> recommendFilms(BenchmarkData data) {
+        return data.likeMatrix.recommend(data.randomUserId(), 10);
+    }
+
+    @Benchmark
+    public List<User> dbFindCommonFriends(BenchmarkData data) {
+        return data.friendDbStorage.findCommonFriends(data.randomUserId(), data.randomUserId());
+    }
+
+    @Benchmark
+    public Like dbAddLike(BenchmarkData data) {
+        Like like = data.nextUnusedLike();
+        data.likeDbStorage.addLike(like.getFilmId(), like.getUserId());
+        return like;
+    }
+
+    @Benchmark
+    public Like inMemoryAddLike(BenchmarkData data) {
+        Like like = data.nextUnusedLike();
+        data.inMemoryLikeStorage.addLike(like.getFilmId(), like.getUserId());
+        return like;
+    }
+
+    @Benchmark
+    public Collection<Film> inMemoryGetPopularFilms(BenchmarkData data) {
+        return data.inMemoryFilmStorage.getPopularFilms(10);
+    }
+
+    @Benchmark
+    public Collection<Film> inMemoryFindAll(BenchmarkData data) {
+        return data.inMemoryFilmStorage.findAll();
+    }
+
+    @Benchmark
+    public Optional<Film> inMemoryGetFilm(BenchmarkData data) {
+        return data.inMemoryFilmStorage.getFilm(data.randomFilmId());
+    }
+}
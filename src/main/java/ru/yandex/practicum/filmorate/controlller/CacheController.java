@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.controlller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.CacheStats;
+import ru.yandex.practicum.filmorate.storage.film.impl.FilmCache;
+
+@RestController
+@Slf4j
+@RequestMapping("/cache")
+public class CacheController {
+    private final FilmCache filmCache;
+
+    @Autowired
+    public CacheController(FilmCache filmCache) {
+        this.filmCache = filmCache;
+    }
+
+    @GetMapping("/films")
+    public CacheStats getFilmCacheStats() {
+        log.info("Получен Get запрос к /cache/films на получение статистики кэша фильмов.");
+        return filmCache.getStats();
+    }
+}
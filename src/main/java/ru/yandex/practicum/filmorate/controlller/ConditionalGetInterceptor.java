@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.controlller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
+import ru.yandex.practicum.filmorate.storage.routing.RoutingContext;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Set;
+
+public class ConditionalGetInterceptor implements AsyncHandlerInterceptor {
+    private static final String PREVIOUS_STICKY = ConditionalGetInterceptor.class.getName() + ".previousSticky";
+
+    private final ChangeVersions changeVersions;
+    private final Set<ChangeVersions.Kind> dependencies;
+
+    public ConditionalGetInterceptor(ChangeVersions changeVersions, Set<ChangeVersions.Kind> dependencies) {
+        this.changeVersions = changeVersions;
+        this.dependencies = dependencies;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC || !isRead(request.getMethod())) {
+            return true;
+        }
+        String etag = changeVersions.etag(dependencies);
+        response.setHeader(HttpHeaders.ETAG, etag);
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+        request.setAttribute(PREVIOUS_STICKY, RoutingContext.setSticky(true));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        restoreSticky(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        restoreSticky(request);
+    }
+
+    private static void restoreSticky(HttpServletRequest request) {
+        Object previous = request.getAttribute(PREVIOUS_STICKY);
+        if (previous != null) {
+            request.removeAttribute(PREVIOUS_STICKY);
+            RoutingContext.setSticky((Boolean) previous);
+        }
+    }
+
+    private static boolean isRead(String method) {
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method);
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,64 +1,150 @@
 package ru.yandex.practicum.filmorate.controlller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.service.StorageExecutor;
+import ru.yandex.practicum.filmorate.service.film.FilmJsonCache;
 import ru.yandex.practicum.filmorate.service.film.FilmService;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @Slf4j
+@Validated
 @RequestMapping("/films")
 public class FilmController {
     private final FilmService filmService;
+    private final StorageExecutor storageExecutor;
+    private final ObjectMapper objectMapper;
+    private final FilmJsonCache filmJsonCache;
 
     @Autowired
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, ObjectMapper objectMapper, StorageExecutor storageExecutor,
+                          FilmJsonCache filmJsonCache) {
         this.filmService = filmService;
+        this.storageExecutor = storageExecutor;
+        this.objectMapper = objectMapper;
+        this.filmJsonCache = filmJsonCache;
     }
 
     @GetMapping
-    public Collection<Film> findAll() {
+    public CompletableFuture<Collection<Film>> findAll() {
         log.info("Получен Get запрос на получение списка фильмов.");
-        return filmService.findAll();
+        return storageExecutor.read(() -> filmService.findAll());
+    }
+
+    @GetMapping(params = {"limit", "!ids"})
+    public CompletableFuture<Page<Film>> findPage(@RequestParam(required = false) String after,
+                                                  @RequestParam(defaultValue = "20") Integer limit) {
+        log.info("Получен Get запрос к /films?after={after}&limit={limit}: after={}, limit={}", after, limit);
+        return storageExecutor.read(() -> filmService.findPage(after, limit));
+    }
+
+    @GetMapping(params = {"ids", "!limit"})
+    public CompletableFuture<List<Film>> findByIds(@RequestParam List<Long> ids) {
+        log.info("Получен Get запрос к /films?ids={ids}: {} id", ids.size());
+        return storageExecutor.read(() -> filmService.findByIds(ids));
+    }
+
+    @GetMapping(params = {"ids", "limit"})
+    public void findByIdsWithLimit() {
+        log.info("Получен Get запрос к /films с ids и limit одновременно");
+        throw new ValidationException("Параметры ids и limit нельзя передавать вместе.");
+    }
+
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        log.info("Получен Get запрос к /films/stream на выгрузку всех фильмов.");
+        StreamingResponseBody body = out -> filmService.streamAll(film -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(film));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @PostMapping
-    public Film create(@Valid @RequestBody Film film) {
+    public CompletableFuture<Film> create(@Valid @RequestBody Film film) {
         log.info("Получен Post запрос к /films: {}", film.toString());
-        return filmService.create(film);
+        return storageExecutor.write(() -> filmService.create(film));
+    }
+
+    @PostMapping("/batch")
+    public CompletableFuture<List<Film>> createAll(@RequestBody List<@Valid Film> films) {
+        log.info("Получен Post запрос к /films/batch: {} фильмов", films.size());
+        return storageExecutor.write(() -> filmService.createAll(films));
     }
 
     @PutMapping
-    public Film update(@Valid @RequestBody Film film) {
+    public CompletableFuture<Film> update(@Valid @RequestBody Film film) {
         log.info("Получен Put запрос к /films: {}", film.toString());
-        return filmService.update(film);
+        return storageExecutor.write(() -> filmService.update(film));
+    }
+
+    @GetMapping("/trending")
+    public CompletableFuture<List<Film>> getTrendingFilms(@RequestParam(defaultValue = "24h") String window,
+                                                          @RequestParam(defaultValue = "10") Integer count) {
+        log.info("Получен Get запрос к /films/trending?window={window}&count={count}: window={}, count={}",
+                window, count);
+        return storageExecutor.read(() -> filmService.getTrendingFilms(window, count));
+    }
+
+    @GetMapping("/search")
+    public CompletableFuture<List<Film>> search(@RequestParam String q, @RequestParam(defaultValue = "10") Integer limit) {
+        log.info("Получен Get запрос к /films/search?q={q}&limit={limit}: q={}, limit={}", q, limit);
+        return storageExecutor.read(() -> filmService.search(q, limit));
     }
 
     @GetMapping("/{id}")
-    public Film getFilm(@PathVariable Long id) {
+    public CompletableFuture<ResponseEntity<byte[]>> getFilm(@PathVariable Long id) {
         log.info("Получен Get запрос к /films/{id}: id{}", id);
-        return filmService.getFilm(id);
+        return storageExecutor.read(() -> json(filmJsonCache.getFilm(id, () -> filmService.getFilm(id))));
     }
 
     @PutMapping("/{id}/like/{userId}")
-    public void addLike(@PathVariable Long id, @PathVariable Long userId) {
+    public CompletableFuture<Void> addLike(@PathVariable Long id, @PathVariable Long userId) {
         log.info("Получен Put запрос к /films/{id}/like/{userId}: id{}, userId{}", id, userId);
-        filmService.addLike(id, userId);
+        return storageExecutor.write(() -> filmService.addLike(id, userId));
     }
 
     @DeleteMapping("/{id}/like/{userId}")
-    public void deleteLike(@PathVariable Long id, @PathVariable Long userId) {
+    public CompletableFuture<Void> deleteLike(@PathVariable Long id, @PathVariable Long userId) {
         log.info("Получен Delete запрос к /films/{id}/like/{userId}: id{}, userId{}", id, userId);
-        filmService.deleteLike(id, userId);
+        return storageExecutor.write(() -> filmService.deleteLike(id, userId));
     }
 
     @GetMapping("/popular")
-    public Collection<Film> getPopularFilms(@RequestParam(defaultValue = "10") Integer count) {
-        log.info("Получен Get запрос к /films/popular?count={count}: count={}", count);
-        return filmService.getPopularFilms(count);
+    public CompletableFuture<ResponseEntity<byte[]>> getPopularFilms(@RequestParam(defaultValue = "10") Integer count,
+                                                                     @RequestParam(required = false) Integer genreId,
+                                                                     @RequestParam(required = false) Integer year) {
+        log.info("Получен Get запрос к /films/popular?count={count}&genreId={genreId}&year={year}: count={}, genreId={}, year={}",
+                count, genreId, year);
+        return storageExecutor.read(() -> json(filmJsonCache.getPopularFilms(count, genreId, year,
+                () -> filmService.getPopularFilms(count, genreId, year))));
+    }
+
+    private static ResponseEntity<byte[]> json(byte[] body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
 }
\ No newline at end of file
@@ -3,68 +3,112 @@ package ru.yandex.practicum.filmorate.controlller;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.FeedEvent;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.StorageExecutor;
 import ru.yandex.practicum.filmorate.service.user.UserService;
 
 import javax.validation.Valid;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @Slf4j
 @RequestMapping("/users")
 public class UserController {
     private final UserService userService;
+    private final StorageExecutor storageExecutor;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, StorageExecutor storageExecutor) {
         this.userService = userService;
+        this.storageExecutor = storageExecutor;
     }
 
     @GetMapping
-    public Collection<User> findAll() {
+    public CompletableFuture<Collection<User>> findAll() {
         log.info("Получен Get запрос на получение списка пользователей.");
-        return userService.findAll();
+        return storageExecutor.read(() -> userService.findAll());
+    }
+
+    @GetMapping(params = {"limit", "!ids"})
+    public CompletableFuture<Page<User>> findPage(@RequestParam(required = false) String after,
+                                                  @RequestParam(defaultValue = "20") Integer limit) {
+        log.info("Получен Get запрос к /users?after={after}&limit={limit}: after={}, limit={}", after, limit);
+        return storageExecutor.read(() -> userService.findPage(after, limit));
+    }
+
+    @GetMapping(params = {"ids", "!limit"})
+    public CompletableFuture<List<User>> findByIds(@RequestParam List<Long> ids) {
+        log.info("Получен Get запрос к /users?ids={ids}: {} id", ids.size());
+        return storageExecutor.read(() -> userService.findByIds(ids));
+    }
+
+    @GetMapping(params = {"ids", "limit"})
+    public void findByIdsWithLimit() {
+        log.info("Получен Get запрос к /users с ids и limit одновременно");
+        throw new ValidationException("Параметры ids и limit нельзя передавать вместе.");
     }
 
     @PostMapping
-    public User create(@Valid @RequestBody User user) {
+    public CompletableFuture<User> create(@Valid @RequestBody User user) {
         log.info("Получен Post запрос к /users: {}", user.toString());
-        return userService.create(user);
+        return storageExecutor.write(() -> userService.create(user));
     }
 
     @PutMapping
-    public User update(@Valid @RequestBody User user) {
+    public CompletableFuture<User> update(@Valid @RequestBody User user) {
         log.info("Получен Put запрос к /users: {}", user.toString());
-        return userService.update(user);
+        return storageExecutor.write(() -> userService.update(user));
     }
 
     @GetMapping("/{id}")
-    public User getUser(@PathVariable Long id) {
+    public CompletableFuture<User> getUser(@PathVariable Long id) {
         log.info("Получен Get запрос к /users/{id}: id{}", id);
-        return userService.getUser(id);
+        return storageExecutor.read(() -> userService.getUser(id));
     }
 
     @PutMapping("/{id}/friends/{friendId}")
-    public void addFriend(@PathVariable Long id, @PathVariable Long friendId) {
+    public CompletableFuture<Void> addFriend(@PathVariable Long id, @PathVariable Long friendId) {
         log.info("Получен Put запрос к /users/{id}/friends/{friendId}: id{}, friendId{}", id, friendId);
-        userService.addFriend(id, friendId);
+        return storageExecutor.write(() -> userService.addFriend(id, friendId));
     }
 
     @DeleteMapping("/{id}/friends/{friendId}")
-    public void deleteFriend(@PathVariable Long id, @PathVariable Long friendId) {
+    public CompletableFuture<Void> deleteFriend(@PathVariable Long id, @PathVariable Long friendId) {
         log.info("Получен Delete запрос к /users/{id}/friends/{friendId}: id{}, friendId{}", id, friendId);
-        userService.deleteFriend(id, friendId);
+        return storageExecutor.write(() -> userService.deleteFriend(id, friendId));
     }
 
     @GetMapping("/{id}/friends")
-    public Collection<User> findFriends(@PathVariable Long id) {
+    public CompletableFuture<Collection<User>> findFriends(@PathVariable Long id) {
         log.info("Получен Get запрос к /users/{id}/friends: id{}", id);
-        return userService.findFriends(id);
+        return storageExecutor.read(() -> userService.findFriends(id));
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
-    public Collection<User> findCommonFriends(@PathVariable Long id, @PathVariable Long otherId) {
+    public CompletableFuture<Collection<User>> findCommonFriends(@PathVariable Long id, @PathVariable Long otherId) {
         log.info("Получен Get запрос к /users/{id}/friends/common/{otherId}: id{}, otherId{}", id, otherId);
-        return userService.findCommonFriends(id, otherId);
+        return storageExecutor.read(() -> userService.findCommonFriends(id, otherId));
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public CompletableFuture<List<Film>> getRecommendations(@PathVariable Long id,
+                                                            @RequestParam(defaultValue = "10") Integer limit) {
+        log.info("Получен Get запрос к /users/{id}/recommendations?limit={limit}: id{}, limit={}", id, limit);
+        return storageExecutor.read(() -> userService.getRecommendations(id, limit));
+    }
+
+    @GetMapping("/{id}/feed")
+    public CompletableFuture<Page<FeedEvent>> getFeed(@PathVariable Long id,
+                                                      @RequestParam(required = false) String after,
+                                                      @RequestParam(defaultValue = "20") Integer limit) {
+        log.info("Получен Get запрос к /users/{id}/feed?after={after}&limit={limit}: id{}, after={}, limit={}",
+                id, after, limit);
+        return storageExecutor.read(() -> userService.getFeed(id, after, limit));
     }
 }
\ No newline at end of file
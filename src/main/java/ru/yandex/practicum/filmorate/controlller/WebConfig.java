@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.controlller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
+
+import java.util.EnumSet;
+
+import static ru.yandex.practicum.filmorate.storage.ChangeVersions.Kind.*;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    private final ChangeVersions changeVersions;
+
+    @Autowired
+    public WebConfig(ChangeVersions changeVersions) {
+        this.changeVersions = changeVersions;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ConditionalGetInterceptor(changeVersions, EnumSet.of(FILMS, REFERENCE)))
+                .addPathPatterns("/films");
+        registry.addInterceptor(new ConditionalGetInterceptor(changeVersions, EnumSet.of(FILMS, LIKES, REFERENCE)))
+                .addPathPatterns("/films/popular");
+        registry.addInterceptor(new ConditionalGetInterceptor(changeVersions, EnumSet.of(REFERENCE)))
+                .addPathPatterns("/genres", "/genres/*", "/mpa", "/mpa/*");
+    }
+}
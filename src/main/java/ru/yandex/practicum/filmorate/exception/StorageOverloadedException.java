@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.exception;
+
+public class StorageOverloadedException extends RuntimeException {
+    public StorageOverloadedException(String message) {
+        super(message);
+    }
+}
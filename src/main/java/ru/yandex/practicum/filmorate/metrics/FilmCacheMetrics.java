@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.CacheStats;
+import ru.yandex.practicum.filmorate.storage.film.impl.FilmCache;
+
+@Component
+@RequiredArgsConstructor
+public class FilmCacheMetrics implements MeterBinder {
+    private final FilmCache filmCache;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("filmorate.cache.requests", filmCache, cache -> cache.getStats().getHits())
+                .tag("cache", "films")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("filmorate.cache.requests", filmCache, cache -> cache.getStats().getMisses())
+                .tag("cache", "films")
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("filmorate.cache.evictions", filmCache, cache -> cache.getStats().getEvictions())
+                .tag("cache", "films")
+                .register(registry);
+        Gauge.builder("filmorate.cache.size", filmCache, cache -> cache.getStats().getSize())
+                .tag("cache", "films")
+                .register(registry);
+        Gauge.builder("filmorate.cache.hit.ratio", filmCache, FilmCacheMetrics::hitRatio)
+                .tag("cache", "films")
+                .register(registry);
+    }
+
+    private static double hitRatio(FilmCache cache) {
+        CacheStats stats = cache.getStats();
+        long total = stats.getHits() + stats.getMisses();
+        return total == 0 ? 0 : (double) stats.getHits() / total;
+    }
+}
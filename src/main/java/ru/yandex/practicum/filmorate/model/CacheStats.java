@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CacheStats {
+    private int size;
+    private int capacity;
+    private long hits;
+    private long misses;
+    private long evictions;
+}
@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Value;
+
+@Value
+public class FeedEvent {
+    long eventId;
+    long timestamp;
+    long userId;
+    EventType eventType;
+    long entityId;
+
+    public enum EventType {
+        LIKE,
+        FRIEND
+    }
+}
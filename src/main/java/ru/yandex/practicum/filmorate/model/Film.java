@@ -13,7 +13,7 @@ import java.util.List;
 import java.util.Set;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class Film {
     private Long id;
     @NotBlank
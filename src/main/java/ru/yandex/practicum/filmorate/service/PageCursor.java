@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+@Slf4j
+public final class PageCursor {
+    public static final int MAX_LIMIT = 1000;
+    private static final String PREFIX = "id:";
+
+    private PageCursor() {
+    }
+
+    public static String encode(Long id) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX)) {
+                throw new IllegalArgumentException(value);
+            }
+            return Long.parseLong(value.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            log.info("Некорректный курсор: {}", cursor);
+            throw new ValidationException("Некорректный курсор: " + cursor);
+        }
+    }
+
+    public static void validateLimit(int limit) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            log.info("Размер страницы {} должен быть от 1 до {}", limit, MAX_LIMIT);
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_LIMIT);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.StorageOverloadedException;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@Component
+@Slf4j
+public class StorageExecutor {
+    private final ThreadPoolExecutor readExecutor;
+    private final ThreadPoolExecutor writeExecutor;
+    private final TaskDecorator taskDecorator;
+
+    public StorageExecutor(@Value("${filmorate.executor.read.threads:6}") int readThreads,
+                           @Value("${filmorate.executor.read.queue:200}") int readQueue,
+                           @Value("${filmorate.executor.write.threads:4}") int writeThreads,
+                           @Value("${filmorate.executor.write.queue:200}") int writeQueue,
+                           MeterRegistry registry,
+                           ObjectProvider<TaskDecorator> taskDecorator) {
+        this.readExecutor = create("storage-read-", readThreads, readQueue);
+        this.writeExecutor = create("storage-write-", writeThreads, writeQueue);
+        this.taskDecorator = taskDecorator.getIfAvailable(() -> task -> task);
+        new ExecutorServiceMetrics(readExecutor, "filmorate.storage.read", Tags.empty()).bindTo(registry);
+        new ExecutorServiceMetrics(writeExecutor, "filmorate.storage.write", Tags.empty()).bindTo(registry);
+    }
+
+    public <T> CompletableFuture<T> read(Supplier<T> task) {
+        return submit(readExecutor, task);
+    }
+
+    public <T> CompletableFuture<T> write(Supplier<T> task) {
+        return submit(writeExecutor, task);
+    }
+
+    public CompletableFuture<Void> write(Runnable task) {
+        return submit(writeExecutor, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        readExecutor.shutdown();
+        writeExecutor.shutdown();
+        readExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        writeExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private <T> CompletableFuture<T> submit(ThreadPoolExecutor executor, Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, command -> executor.execute(taskDecorator.decorate(command)));
+        } catch (RejectedExecutionException e) {
+            log.warn("Пул потоков хранилища переполнен: активных {}, в очереди {}",
+                    executor.getActiveCount(), executor.getQueue().size());
+            throw new StorageOverloadedException("Сервис перегружен, повторите запрос позже.");
+        }
+    }
+
+    private static ThreadPoolExecutor create(String prefix, int threads, int queue) {
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queue), new CustomizableThreadFactory(prefix),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
+import ru.yandex.practicum.filmorate.storage.routing.RoutingContext;
+
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static ru.yandex.practicum.filmorate.storage.ChangeVersions.Kind.*;
+
+@Component
+public class FilmJsonCache {
+    private static final Set<ChangeVersions.Kind> FILM_DEPENDENCIES = EnumSet.of(REFERENCE);
+    private static final Set<ChangeVersions.Kind> POPULAR_DEPENDENCIES = EnumSet.of(FILMS, LIKES, REFERENCE);
+
+    private final ObjectMapper objectMapper;
+    private final ChangeVersions changeVersions;
+    private final Map<Long, Entry> films;
+    private final Map<PopularKey, Entry> popular;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public FilmJsonCache(ObjectMapper objectMapper, ChangeVersions changeVersions,
+                         @Value("${filmorate.cache.film-json.size:10000}") int filmCapacity,
+                         @Value("${filmorate.cache.popular-json.size:256}") int popularCapacity) {
+        this.objectMapper = objectMapper;
+        this.changeVersions = changeVersions;
+        this.films = lru(filmCapacity);
+        this.popular = lru(popularCapacity);
+    }
+
+    public byte[] getFilm(Long id, Supplier<Film> loader) {
+        long stamp = changeVersions.stamp(FILM_DEPENDENCIES);
+        Entry entry = get(films, id);
+        if (entry != null && entry.getStamp() == stamp) {
+            return entry.getJson();
+        }
+        long invalidated = invalidations.get();
+        byte[] json = serialize(RoutingContext.onPrimary(loader));
+        synchronized (films) {
+            if (invalidations.get() == invalidated) {
+                films.put(id, new Entry(stamp, json));
+            }
+        }
+        return json;
+    }
+
+    public byte[] getPopularFilms(long size, Integer genreId, Integer year, Supplier<Collection<Film>> loader) {
+        PopularKey key = new PopularKey(size, genreId, year);
+        long stamp = changeVersions.stamp(POPULAR_DEPENDENCIES);
+        Entry entry = get(popular, key);
+        if (entry != null && entry.getStamp() == stamp) {
+            return entry.getJson();
+        }
+        byte[] json = serialize(RoutingContext.onPrimary(loader));
+        put(popular, key, new Entry(stamp, json));
+        return json;
+    }
+
+    public void invalidate(Long id) {
+        synchronized (films) {
+            invalidations.incrementAndGet();
+            films.remove(id);
+        }
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <K> Entry get(Map<K, Entry> entries, K key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    private static <K> void put(Map<K, Entry> entries, K key, Entry entry) {
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    private static <K> Map<K, Entry> lru(int capacity) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @lombok.Value
+    private static class Entry {
+        long stamp;
+        byte[] json;
+    }
+
+    @lombok.Value
+    private static class PopularKey {
+        long size;
+        Integer genreId;
+        Integer year;
+    }
+}
@@ -2,19 +2,28 @@ package ru.yandex.practicum.filmorate.service.film;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
 import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.FeedEvent;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.service.PageCursor;
+import ru.yandex.practicum.filmorate.storage.feed.UserFeeds;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.film.LikeStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.Month;
 import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -23,24 +32,64 @@ public class FilmService {
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
     private final LikeStorage likeStorage;
+    private final FilmJsonCache filmJsonCache;
+    private final UserFeeds userFeeds;
+    private static final int MAX_IDS = 500;
     private static final LocalDate CINEMA_BIRTHDAY = LocalDate.of(1895, Month.DECEMBER, 28);
 
     public Collection<Film> findAll() {
         return filmStorage.findAll();
     }
 
+    public Page<Film> findPage(String after, int limit) {
+        PageCursor.validateLimit(limit);
+        List<Film> films = filmStorage.findPage(PageCursor.decode(after), limit + 1);
+        if (films.size() <= limit) {
+            return new Page<>(films, null);
+        }
+        List<Film> items = films.subList(0, limit);
+        return new Page<>(items, PageCursor.encode(items.get(limit - 1).getId()));
+    }
+
+    public List<Film> findByIds(List<Long> ids) {
+        List<Long> distinct = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        if (distinct.isEmpty() || distinct.size() > MAX_IDS) {
+            log.info("Количество id {} должно быть от 1 до {}", distinct.size(), MAX_IDS);
+            throw new ValidationException("Количество id должно быть от 1 до " + MAX_IDS);
+        }
+        return filmStorage.findByIds(distinct);
+    }
+
+    public void streamAll(Consumer<Film> action) {
+        filmStorage.streamAll(action);
+    }
+
     public Film create(Film film) {
         filmValidation(film);
         return filmStorage.create(film);
     }
 
+    public List<Film> createAll(List<Film> films) {
+        if (films.isEmpty()) {
+            log.info("Список фильмов для загрузки пуст.");
+            throw new ValidationException("Список фильмов для загрузки пуст.");
+        }
+        films.forEach(this::filmValidation);
+        return filmStorage.createAll(films);
+    }
+
     public Film update(Film film) {
         filmValidation(film);
-        return filmStorage.update(film)
+        Film updated = filmStorage.update(film)
                 .orElseThrow(() -> {
                     log.info("Фильм с id {} не найден", film.getId());
                     throw new FilmNotFoundException("Фильма с id " + film.getId() + " не существует.");
                 });
+        filmJsonCache.invalidate(updated.getId());
+        return updated;
     }
 
     public Film getFilm(Long id) {
@@ -51,31 +100,57 @@ public class FilmService {
                 });
     }
 
-    public Collection<Film> getPopularFilms(long size) {
-        log.info("Получить список популярных фильмов: {}", size);
-        return filmStorage.getPopularFilms(size);
+    public Collection<Film> getPopularFilms(long size, Integer genreId, Integer year) {
+        log.info("Получить список популярных фильмов: {}, жанр {}, год {}", size, genreId, year);
+        return filmStorage.getPopularFilms(size, genreId, year);
+    }
+
+    public List<Film> getTrendingFilms(String window, int limit) {
+        PageCursor.validateLimit(limit);
+        Duration duration;
+        try {
+            duration = DurationStyle.detectAndParse(window);
+        } catch (IllegalArgumentException e) {
+            log.info("Некорректное окно трендов: {}", window);
+            throw new ValidationException("Некорректное окно трендов: " + window);
+        }
+        log.info("Получить список трендовых фильмов: окно {}, limit={}", duration, limit);
+        return filmStorage.findByIds(likeStorage.getTrendingFilmIds(duration, limit));
+    }
+
+    public List<Film> search(String query, int limit) {
+        PageCursor.validateLimit(limit);
+        log.info("Поиск фильмов по запросу \"{}\", limit={}", query, limit);
+        return filmStorage.search(query, limit);
     }
 
     public void addLike(Long filmId, Long userId) {
-        Film film = getFilm(filmId);
-        User user = userStorage.getUser(userId)
-                .orElseThrow(() -> {
-                    log.info("Пользователь с id {} не найден", userId);
-                    return new UserNotFoundException(String.format("Пользователя с id " + userId + " не существует."));
-                });
+        checkFilmExists(filmId);
+        checkUserExists(userId);
         likeStorage.addLike(filmId, userId);
-        log.info("Пользователь {} поставил Лайк фильму {}", user.getName(), film.getName());
+        userFeeds.publish(userId, FeedEvent.EventType.LIKE, filmId);
+        log.info("Пользователь {} поставил Лайк фильму {}", userId, filmId);
     }
 
     public void deleteLike(Long filmId, Long userId) {
-        Film film = getFilm(filmId);
-        User user = userStorage.getUser(userId)
-                .orElseThrow(() -> {
-                    log.info("Пользователь с id {} не найден", userId);
-                    return new UserNotFoundException(String.format("Пользователя с id " + userId + " не существует."));
-                });
+        checkFilmExists(filmId);
+        checkUserExists(userId);
         likeStorage.deleteLike(filmId, userId);
-        log.info("Пользователь {} удалил Лайк с фильма {}", user.getName(), film.getName());
+        log.info("Пользователь {} удалил Лайк с фильма {}", userId, filmId);
+    }
+
+    private void checkFilmExists(Long filmId) {
+        if (!filmStorage.exists(filmId)) {
+            log.info("Фильм с id {} не найден", filmId);
+            throw new FilmNotFoundException("Фильма с id " + filmId + " не существует.");
+        }
+    }
+
+    private void checkUserExists(Long userId) {
+        if (!userStorage.exists(userId)) {
+            log.info("Пользователь с id {} не найден", userId);
+            throw new UserNotFoundException("Пользователя с id " + userId + " не существует.");
+        }
     }
 
     private void filmValidation(Film film) {
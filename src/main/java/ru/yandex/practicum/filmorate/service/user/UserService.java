@@ -4,51 +4,110 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.FeedEvent;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.PageCursor;
+import ru.yandex.practicum.filmorate.storage.feed.UserFeeds;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.LikeStorage;
 import ru.yandex.practicum.filmorate.storage.user.FriendStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserService {
+    private static final int MAX_IDS = 500;
+
     private final UserStorage userStorage;
     private final FriendStorage friendStorage;
+    private final FilmStorage filmStorage;
+    private final LikeStorage likeStorage;
+    private final UserFeeds userFeeds;
 
     public void addFriend(Long userId, Long friendId) {
-        User user = getUser(userId);
-        User friend = getUser(friendId);
+        checkUserExists(userId);
+        checkUserExists(friendId);
         friendStorage.addFriend(userId, friendId);
-        log.info("Добавлены в друзья: {} и {}", user.getName(), friend.getName());
+        userFeeds.follow(userId, friendId);
+        userFeeds.publish(userId, FeedEvent.EventType.FRIEND, friendId);
+        log.info("Добавлены в друзья: {} и {}", userId, friendId);
     }
 
     public void deleteFriend(Long userId, Long friendId) {
-        User user = getUser(userId);
-        User friend = getUser(friendId);
+        checkUserExists(userId);
+        checkUserExists(friendId);
         friendStorage.deleteFriend(userId, friendId);
-        log.info("Удалены из друзей: {} и {}", user.getName(), friend.getName());
+        userFeeds.unfollow(userId, friendId);
+        log.info("Удалены из друзей: {} и {}", userId, friendId);
     }
 
     public List<User> findCommonFriends(Long userId, Long friendId) {
-        User user = getUser(userId);
-        User friend = getUser(friendId);
-        log.info("Найти общих друзей: {} и {}", user.getName(), friend.getName());
+        checkUserExists(userId);
+        checkUserExists(friendId);
+        log.info("Найти общих друзей: {} и {}", userId, friendId);
         return friendStorage.findCommonFriends(userId, friendId);
     }
 
     public Collection<User> findFriends(Long userId) {
-        User user = getUser(userId);
-        log.info("Найти друзей пользователя: {}", user.getName());
+        checkUserExists(userId);
+        log.info("Найти друзей пользователя: {}", userId);
         return friendStorage.findFriends(userId);
     }
 
+    public List<Film> getRecommendations(Long userId, int limit) {
+        PageCursor.validateLimit(limit);
+        checkUserExists(userId);
+        log.info("Найти рекомендации фильмов для пользователя: {}", userId);
+        return filmStorage.findByIds(likeStorage.getRecommendedFilmIds(userId, limit));
+    }
+
+    public Page<FeedEvent> getFeed(Long userId, String after, int limit) {
+        PageCursor.validateLimit(limit);
+        checkUserExists(userId);
+        long afterId = PageCursor.decode(after);
+        List<FeedEvent> events = userFeeds.feed(userId, afterId == 0 ? Long.MAX_VALUE : afterId, limit + 1);
+        if (events.size() <= limit) {
+            return new Page<>(events, null);
+        }
+        List<FeedEvent> items = events.subList(0, limit);
+        return new Page<>(items, PageCursor.encode(items.get(limit - 1).getEventId()));
+    }
+
     public Collection<User> findAll() {
         return userStorage.findAll();
     }
 
+    public Page<User> findPage(String after, int limit) {
+        PageCursor.validateLimit(limit);
+        List<User> users = userStorage.findPage(PageCursor.decode(after), limit + 1);
+        if (users.size() <= limit) {
+            return new Page<>(users, null);
+        }
+        List<User> items = users.subList(0, limit);
+        return new Page<>(items, PageCursor.encode(items.get(limit - 1).getId()));
+    }
+
+    public List<User> findByIds(List<Long> ids) {
+        List<Long> distinct = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        if (distinct.isEmpty() || distinct.size() > MAX_IDS) {
+            log.info("Количество id {} должно быть от 1 до {}", distinct.size(), MAX_IDS);
+            throw new ValidationException("Количество id должно быть от 1 до " + MAX_IDS);
+        }
+        return userStorage.findByIds(distinct);
+    }
+
     public User create(User user) {
         userValidation(user);
         return userStorage.create(user);
@@ -67,6 +126,13 @@ public class UserService {
                 });
     }
 
+    private void checkUserExists(Long userId) {
+        if (!userStorage.exists(userId)) {
+            log.info("Пользователь с id {} не найден", userId);
+            throw new UserNotFoundException("Пользователя с id " + userId + " не существует.");
+        }
+    }
+
     private void userValidation(User user) {
         if (user.getName() == null || user.getName().isEmpty()) {
             log.info("Имя для отображения пустое — в таком случае будет использован логин: {}", user.getLogin());
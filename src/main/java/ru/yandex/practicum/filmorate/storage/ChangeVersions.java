@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+@Component
+public class ChangeVersions {
+
+    public enum Kind {
+        FILMS,
+        LIKES,
+        REFERENCE
+    }
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLongArray versions = new AtomicLongArray(Kind.values().length);
+
+    public void bump(Kind kind) {
+        versions.incrementAndGet(kind.ordinal());
+    }
+
+    public long get(Kind kind) {
+        return versions.get(kind.ordinal());
+    }
+
+    public long stamp(Set<Kind> kinds) {
+        long stamp = 0;
+        for (Kind kind : kinds) {
+            stamp += get(kind);
+        }
+        return stamp;
+    }
+
+    public String etag(Set<Kind> kinds) {
+        StringBuilder etag = new StringBuilder("\"").append(epoch);
+        for (Kind kind : Kind.values()) {
+            if (kinds.contains(kind)) {
+                etag.append('-').append(get(kind));
+            }
+        }
+        return etag.append('"').toString();
+    }
+}
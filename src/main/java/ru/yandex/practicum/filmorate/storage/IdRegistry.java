@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class IdRegistry {
+
+    private final BitSet ids = new BitSet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void add(Long id) {
+        if (!isValid(id)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ids.set(id.intValue());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(Long id) {
+        if (!isValid(id)) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return ids.get(id.intValue());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ids.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void write(DataOutput out) throws IOException {
+        long[] words;
+        lock.readLock().lock();
+        try {
+            words = ids.toLongArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    public void read(DataInput in) throws IOException {
+        long[] words = new long[in.readInt()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+        BitSet loaded = BitSet.valueOf(words);
+        lock.writeLock().lock();
+        try {
+            ids.clear();
+            ids.or(loaded);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean isValid(Long id) {
+        return id != null && id > 0 && id <= Integer.MAX_VALUE;
+    }
+}
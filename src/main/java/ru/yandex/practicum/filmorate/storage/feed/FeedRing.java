@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.storage.feed;
+
+import ru.yandex.practicum.filmorate.model.FeedEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class FeedRing {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final int capacity;
+    private FeedEvent[] events;
+    private int start;
+    private int size;
+
+    FeedRing(int capacity) {
+        this.capacity = capacity;
+        this.events = new FeedEvent[Math.min(capacity, INITIAL_CAPACITY)];
+    }
+
+    synchronized void add(FeedEvent event) {
+        if (size == events.length) {
+            if (events.length < capacity) {
+                grow();
+            } else {
+                start = (start + 1) % events.length;
+                size--;
+            }
+        }
+        int position = size;
+        while (position > 0 && get(position - 1).getEventId() > event.getEventId()) {
+            set(position, get(position - 1));
+            position--;
+        }
+        set(position, event);
+        size++;
+    }
+
+    synchronized List<FeedEvent> before(long eventId, int limit) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (get(middle).getEventId() < eventId) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        List<FeedEvent> result = new ArrayList<>(Math.min(limit, low));
+        for (int i = low - 1; i >= 0 && result.size() < limit; i--) {
+            result.add(get(i));
+        }
+        return result;
+    }
+
+    synchronized void removeAuthor(long userId) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            FeedEvent event = get(i);
+            if (event.getUserId() != userId) {
+                set(kept++, event);
+            }
+        }
+        for (int i = kept; i < size; i++) {
+            set(i, null);
+        }
+        size = kept;
+    }
+
+    private void grow() {
+        FeedEvent[] grown = new FeedEvent[Math.min(capacity, events.length * 2)];
+        for (int i = 0; i < size; i++) {
+            grown[i] = get(i);
+        }
+        events = grown;
+        start = 0;
+    }
+
+    private FeedEvent get(int index) {
+        return events[(start + index) % events.length];
+    }
+
+    private void set(int index, FeedEvent event) {
+        events[(start + index) % events.length] = event;
+    }
+}
@@ -0,0 +1,110 @@
+package ru.yandex.practicum.filmorate.storage.feed;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.FeedEvent;
+import ru.yandex.practicum.filmorate.storage.user.FriendStorage;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Component
+public class UserFeeds {
+
+    private static final Comparator<FeedEvent> NEWEST_FIRST = Comparator.comparingLong(FeedEvent::getEventId).reversed();
+
+    private final FriendStorage friendStorage;
+    private final int capacity;
+    private final int fanOutLimit;
+    private final AtomicLong eventIds = new AtomicLong();
+    private final Map<Long, FeedRing> inboxes = new ConcurrentHashMap<>();
+    private final Map<Long, FeedRing> outboxes = new ConcurrentHashMap<>();
+    private final Set<Long> pulledAuthors = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Set<Long>> pulledByFollower = new ConcurrentHashMap<>();
+
+    public UserFeeds(FriendStorage friendStorage,
+                     @Value("${filmorate.feed.capacity:200}") int capacity,
+                     @Value("${filmorate.feed.fan-out-limit:1000}") int fanOutLimit) {
+        this.friendStorage = friendStorage;
+        this.capacity = capacity;
+        this.fanOutLimit = fanOutLimit;
+    }
+
+    public void publish(long userId, FeedEvent.EventType eventType, long entityId) {
+        FeedEvent event = new FeedEvent(eventIds.incrementAndGet(), System.currentTimeMillis(), userId, eventType,
+                entityId);
+        ring(outboxes, userId).add(event);
+        if (pulledAuthors.contains(userId)) {
+            return;
+        }
+        List<Long> followerIds = friendStorage.findFollowerIds(userId, fanOutLimit + 1);
+        if (followerIds.size() > fanOutLimit) {
+            switchToPull(userId);
+            return;
+        }
+        for (Long followerId : followerIds) {
+            ring(inboxes, followerId).add(event);
+        }
+    }
+
+    public void follow(long userId, long friendId) {
+        if (pulledAuthors.contains(friendId)) {
+            pulledByFollower.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(friendId);
+        }
+    }
+
+    public void unfollow(long userId, long friendId) {
+        Set<Long> pulled = pulledByFollower.get(userId);
+        if (pulled != null) {
+            pulled.remove(friendId);
+        }
+        FeedRing inbox = inboxes.get(userId);
+        if (inbox != null) {
+            inbox.removeAuthor(friendId);
+        }
+    }
+
+    public List<FeedEvent> feed(long userId, long beforeEventId, int limit) {
+        List<FeedEvent> candidates = new ArrayList<>();
+        FeedRing inbox = inboxes.get(userId);
+        if (inbox != null) {
+            candidates.addAll(inbox.before(beforeEventId, limit));
+        }
+        for (Long authorId : pulledByFollower.getOrDefault(userId, Set.of())) {
+            FeedRing outbox = outboxes.get(authorId);
+            if (outbox != null) {
+                candidates.addAll(outbox.before(beforeEventId, limit));
+            }
+        }
+        candidates.sort(NEWEST_FIRST);
+        List<FeedEvent> result = new ArrayList<>(Math.min(limit, candidates.size()));
+        long previousId = Long.MAX_VALUE;
+        for (FeedEvent event : candidates) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (event.getEventId() != previousId) {
+                result.add(event);
+                previousId = event.getEventId();
+            }
+        }
+        return result;
+    }
+
+    private void switchToPull(long userId) {
+        if (!pulledAuthors.add(userId)) {
+            return;
+        }
+        for (Long followerId : friendStorage.findFollowerIds(userId, Integer.MAX_VALUE)) {
+            follow(followerId, userId);
+        }
+        log.info("Лента пользователя {} раздаётся при чтении: больше {} подписчиков", userId, fanOutLimit);
+    }
+
+    private FeedRing ring(Map<Long, FeedRing> rings, long userId) {
+        return rings.computeIfAbsent(userId, id -> new FeedRing(capacity));
+    }
+}
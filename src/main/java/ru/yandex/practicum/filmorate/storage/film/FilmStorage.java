@@ -3,17 +3,33 @@ package ru.yandex.practicum.filmorate.storage.film;
 import ru.yandex.practicum.filmorate.model.Film;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
 
     Collection<Film> findAll();
 
+    List<Film> findPage(long afterId, int limit);
+
+    void streamAll(Consumer<Film> action);
+
     Film create(Film film);
 
+    List<Film> createAll(List<Film> films);
+
     Optional<Film> update(Film film);
 
     Optional<Film> getFilm(Long id);
 
+    List<Film> findByIds(List<Long> ids);
+
+    boolean exists(Long id);
+
     Collection<Film> getPopularFilms(long size);
+
+    Collection<Film> getPopularFilms(long size, Integer genreId, Integer year);
+
+    List<Film> search(String query, int limit);
 }
@@ -1,8 +1,15 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import java.time.Duration;
+import java.util.List;
+
 public interface LikeStorage {
 
     void addLike(Long filmId, Long userId);
 
     void deleteLike(Long filmId, Long userId);
+
+    List<Long> getTrendingFilmIds(Duration window, int limit);
+
+    List<Long> getRecommendedFilmIds(Long userId, int limit);
 }
@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.storage.film.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.CacheStats;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class FilmCache {
+
+    private final int capacity;
+    private final ChangeVersions changeVersions;
+    private final Map<Long, Entry> films;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public FilmCache(@Value("${filmorate.cache.films.size:10000}") int capacity, ChangeVersions changeVersions) {
+        this.capacity = capacity;
+        this.changeVersions = changeVersions;
+        this.films = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > FilmCache.this.capacity) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Optional<Film> get(Long id) {
+        long reference = changeVersions.get(ChangeVersions.Kind.REFERENCE);
+        Entry entry;
+        synchronized (films) {
+            entry = films.get(id);
+            if (entry != null && entry.getReference() != reference) {
+                films.remove(id);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(copy(entry.getFilm()));
+    }
+
+    public long generation() {
+        return invalidations.get() + changeVersions.get(ChangeVersions.Kind.REFERENCE);
+    }
+
+    public void put(Film film, long generation) {
+        Film copy = copy(film);
+        synchronized (films) {
+            if (generation() == generation) {
+                films.put(copy.getId(), new Entry(changeVersions.get(ChangeVersions.Kind.REFERENCE), copy));
+            }
+        }
+    }
+
+    public void invalidate(Long id) {
+        synchronized (films) {
+            invalidations.incrementAndGet();
+            films.remove(id);
+        }
+    }
+
+    public CacheStats getStats() {
+        int size;
+        synchronized (films) {
+            size = films.size();
+        }
+        return CacheStats.builder()
+                .size(size)
+                .capacity(capacity)
+                .hits(hits.sum())
+                .misses(misses.sum())
+                .evictions(evictions.sum())
+                .build();
+    }
+
+    private static Film copy(Film film) {
+        return film.toBuilder()
+                .genres(film.getGenres() == null ? null : new ArrayList<>(film.getGenres()))
+                .build();
+    }
+
+    @lombok.Value
+    private static class Entry {
+        long reference;
+        Film film;
+    }
+}
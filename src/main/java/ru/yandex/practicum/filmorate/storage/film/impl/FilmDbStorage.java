@@ -3,42 +3,148 @@ package ru.yandex.practicum.filmorate.storage.film.impl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
+import ru.yandex.practicum.filmorate.storage.IdRegistry;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.film.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.film.MpaStorage;
+import ru.yandex.practicum.filmorate.storage.routing.ReadOnlyQuery;
+import ru.yandex.practicum.filmorate.storage.routing.RoutingContext;
+import ru.yandex.practicum.filmorate.storage.snapshot.StartupSnapshot;
 
+import javax.annotation.PostConstruct;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Component
+@Profile("!memory")
 @Primary
 @Slf4j
 @RequiredArgsConstructor
 public class FilmDbStorage implements FilmStorage {
 
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final int BATCH_SIZE = 1000;
+
+    static final String LOAD_INDEXES_QUERY = "SELECT m.film_id, EXTRACT(YEAR FROM m.release_date) AS release_year, " +
+            "COUNT(l.user_id) AS likes_count " +
+            "FROM movies m " +
+            "LEFT JOIN likes l ON m.film_id = l.film_id " +
+            "GROUP BY m.film_id, m.release_date";
+    static final String FIND_PAGE_QUERY = "SELECT * FROM movies WHERE film_id > ? ORDER BY film_id LIMIT ?";
+    static final String STREAM_ALL_QUERY = "SELECT m.*, mg.genre_id " +
+            "FROM movies m " +
+            "LEFT JOIN movie_genres mg ON m.film_id = mg.film_id " +
+            "ORDER BY m.film_id, mg.genre_id";
+    static final String UPDATE_QUERY = "UPDATE movies SET title = ?, description = ?, release_date = ?, duration = ?, " +
+            "mpa_id = ? WHERE film_id = ?";
+    static final String DELETE_GENRES_QUERY = "DELETE FROM movie_genres WHERE film_id = ?";
+    static final String GET_FILM_QUERY = "SELECT * FROM movies WHERE film_id = ?";
+
     private final JdbcTemplate jdbcTemplate;
     private final GenreStorage genreStorage;
+    private final MpaStorage mpaStorage;
+    private final FilmLeaderboard leaderboard;
+    private final FilmCache filmCache;
+    private final FilmSearchIndex searchIndex;
+    private final ChangeVersions changeVersions;
+    private final StartupSnapshot startupSnapshot;
+    private final IdRegistry knownIds = new IdRegistry();
+
+    @PostConstruct
+    public void loadIndexes() {
+        startupSnapshot.register("films", out -> {
+            knownIds.write(out);
+            leaderboard.write(out);
+            searchIndex.write(out);
+        });
+        if (startupSnapshot.restore("films", in -> {
+            knownIds.read(in);
+            leaderboard.read(in);
+            searchIndex.read(in);
+        })) {
+            return;
+        }
+        Map<Long, List<Integer>> filmGenres = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, genre_id FROM movie_genres", (RowCallbackHandler) rs ->
+                filmGenres.computeIfAbsent(rs.getLong("film_id"), id -> new ArrayList<>()).add(rs.getInt("genre_id")));
 
+        leaderboard.clear();
+        jdbcTemplate.query(LOAD_INDEXES_QUERY, (RowCallbackHandler) rs -> {
+            long filmId = rs.getLong("film_id");
+            knownIds.add(filmId);
+            leaderboard.load(filmId, rs.getLong("likes_count"), rs.getInt("release_year"),
+                    filmGenres.getOrDefault(filmId, List.of()));
+        });
+        log.info("Загружены id и рейтинг фильмов: {}", knownIds.size());
+
+        searchIndex.clear();
+        jdbcTemplate.query("SELECT film_id, title, description FROM movies ORDER BY film_id",
+                (RowCallbackHandler) rs -> searchIndex.add(makeFilmText(rs, 0)));
+        log.info("Построен поисковый индекс фильмов: {} токенов", searchIndex.tokens());
+    }
+
+    @ReadOnlyQuery
     public Collection<Film> findAll() {
-        String sqlQuery = "SELECT m.*, r.name " +
-                "FROM movies m " +
-                "JOIN mpa r ON m.mpa_id = r.mpa_id";
-        List<Film> films = jdbcTemplate.query(sqlQuery, FilmDbStorage::makeFilm);
+        String sqlQuery = "SELECT * FROM movies";
+        List<Film> films = jdbcTemplate.query(sqlQuery, this::makeFilm);
         setGenresForFilms(films);
         return films;
     }
 
+    @Override
+    @ReadOnlyQuery
+    public List<Film> findPage(long afterId, int limit) {
+        List<Film> films = jdbcTemplate.query(FIND_PAGE_QUERY, this::makeFilm, afterId, limit);
+        setGenresForFilms(films);
+        return films;
+    }
+
+    @Override
+    @ReadOnlyQuery
+    public void streamAll(Consumer<Film> action) {
+        Film[] current = new Film[1];
+        jdbcTemplate.query(connection -> {
+            PreparedStatement stmt = connection.prepareStatement(STREAM_ALL_QUERY,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            return stmt;
+        }, (RowCallbackHandler) rs -> {
+            long filmId = rs.getLong("film_id");
+            if (current[0] == null || current[0].getId() != filmId) {
+                if (current[0] != null) {
+                    action.accept(current[0]);
+                }
+                current[0] = makeFilm(rs, 0);
+                current[0].setGenres(new ArrayList<>());
+            }
+            int genreId = rs.getInt("genre_id");
+            if (!rs.wasNull()) {
+                current[0].getGenres().add(genreStorage.getGenre(genreId));
+            }
+        });
+        if (current[0] != null) {
+            action.accept(current[0]);
+        }
+    }
+
     @Override
     public Film create(Film film) {
         final String sqlQuery = "INSERT INTO movies(title, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)";
@@ -54,14 +160,70 @@ public class FilmDbStorage implements FilmStorage {
         }, keyHolder);
         film.setId(Objects.requireNonNull(keyHolder.getKey()).longValue());
         addGenre(film);
+        knownIds.add(film.getId());
+        filmCache.invalidate(film.getId());
+        register(film.getId(), film.getReleaseDate(), film.getGenres());
+        searchIndex.add(film);
+        changeVersions.bump(ChangeVersions.Kind.FILMS);
         log.info("Добавлен фильм: {}", film);
         return film;
     }
 
+    @Override
+    @Transactional
+    public List<Film> createAll(List<Film> films) {
+        final String sqlQuery = "INSERT INTO movies(title, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)";
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(sqlQuery, new String[]{"film_id"})) {
+                for (int from = 0; from < films.size(); from += BATCH_SIZE) {
+                    List<Film> chunk = films.subList(from, Math.min(from + BATCH_SIZE, films.size()));
+                    for (Film film : chunk) {
+                        stmt.setString(1, film.getName());
+                        stmt.setString(2, film.getDescription());
+                        stmt.setDate(3, Date.valueOf(film.getReleaseDate()));
+                        stmt.setInt(4, film.getDuration());
+                        stmt.setInt(5, film.getMpa().getId());
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                    try (ResultSet keys = stmt.getGeneratedKeys()) {
+                        for (Film film : chunk) {
+                            if (!keys.next()) {
+                                throw new SQLException("Не получен id для фильма " + film.getName());
+                            }
+                            film.setId(keys.getLong(1));
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+
+        List<Object[]> genreRows = new ArrayList<>();
+        for (Film film : films) {
+            if (film.getGenres() != null) {
+                List<Genre> genres = film.getGenres().stream()
+                        .distinct()
+                        .collect(Collectors.toList());
+                film.setGenres(genres);
+                genres.forEach(genre -> genreRows.add(new Object[]{film.getId(), genre.getId()}));
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO movie_genres (film_id, genre_id) VALUES (?, ?)", genreRows);
+
+        films.forEach(film -> {
+            knownIds.add(film.getId());
+            register(film.getId(), film.getReleaseDate(), film.getGenres());
+        });
+        searchIndex.addAll(films);
+        changeVersions.bump(ChangeVersions.Kind.FILMS);
+        log.info("Добавлено фильмов: {}", films.size());
+        return films;
+    }
+
     private void addGenre(Film film) {
         if (film.getGenres() != null) {
-            String sqlQuery = "DELETE FROM movie_genres WHERE film_id = ?";
-            jdbcTemplate.update(sqlQuery, film.getId());
+            jdbcTemplate.update(DELETE_GENRES_QUERY, film.getId());
 
             List<Genre> genres = film.getGenres().stream()
                     .distinct()
@@ -83,10 +245,10 @@ public class FilmDbStorage implements FilmStorage {
 
     @Override
     public Optional<Film> update(Film film) {
-        final String sqlQuery = "UPDATE movies SET title = ?, description = ?, release_date = ?, duration = ?, " +
-                "mpa_id = ? WHERE film_id = ?";
+        List<Film> previous = jdbcTemplate.query("SELECT film_id, title, description FROM movies WHERE film_id = ?",
+                this::makeFilmText, film.getId());
         int updateCount = jdbcTemplate.update(connection -> {
-            PreparedStatement stmt = connection.prepareStatement(sqlQuery, new String[]{"film_id"});
+            PreparedStatement stmt = connection.prepareStatement(UPDATE_QUERY, new String[]{"film_id"});
             stmt.setString(1, film.getName());
             stmt.setString(2, film.getDescription());
             stmt.setDate(3, Date.valueOf(film.getReleaseDate()));
@@ -99,17 +261,25 @@ public class FilmDbStorage implements FilmStorage {
             return Optional.empty();
         } else {
             addGenre(film);
+            filmCache.invalidate(film.getId());
+            register(film.getId(), film.getReleaseDate(), film.getGenres() == null
+                    ? genreStorage.getFilmGenresById(film.getId()) : film.getGenres());
+            previous.forEach(old -> searchIndex.update(old, film));
+            changeVersions.bump(ChangeVersions.Kind.FILMS);
             log.info("Обновлен фильм: {}", film);
             return Optional.of(film);
         }
     }
 
     @Override
+    @ReadOnlyQuery
     public Optional<Film> getFilm(Long id) {
-        String sqlQuery = "SELECT * FROM movies m " +
-                "JOIN mpa r on m.mpa_id = r.mpa_id " +
-                "WHERE m.film_id = ? ";
-        List<Film> films = jdbcTemplate.query(sqlQuery, FilmDbStorage::makeFilm, id);
+        Optional<Film> cached = filmCache.get(id);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        long generation = filmCache.generation();
+        List<Film> films = jdbcTemplate.query(GET_FILM_QUERY, this::makeFilm, id);
 
         if (films.isEmpty()) {
             return Optional.empty();
@@ -124,25 +294,91 @@ public class FilmDbStorage implements FilmStorage {
             } else {
                 film.setGenres(genres);
             }
+            cache(film, generation);
             log.info("Найден фильм: {}", film);
             return Optional.of(film);
         }
     }
 
     @Override
+    public boolean exists(Long id) {
+        return knownIds.contains(id);
+    }
+
+    @Override
+    @ReadOnlyQuery
     public Collection<Film> getPopularFilms(long size) {
-        String sqlQuery = "SELECT m.*, r.name, COUNT(l.user_id) AS likes_count " +
-                "FROM movies m " +
-                "JOIN mpa r ON m.mpa_id = r.mpa_id " +
-                "LEFT JOIN likes l ON m.film_id = l.film_id " +
-                "GROUP BY m.film_id " +
-                "ORDER BY likes_count DESC LIMIT ?";
-        List<Film> films = jdbcTemplate.query(sqlQuery, FilmDbStorage::makeFilm, size);
-        setGenresForFilms(films);
-        return films;
+        return findByIds(leaderboard.top(size));
+    }
+
+    @Override
+    @ReadOnlyQuery
+    public Collection<Film> getPopularFilms(long size, Integer genreId, Integer year) {
+        return findByIds(leaderboard.top(size, genreId, year));
+    }
+
+    @Override
+    @ReadOnlyQuery
+    public List<Film> search(String query, int limit) {
+        return findByIds(searchIndex.search(query, limit))
+                .stream()
+                .filter(film -> FilmSearchIndex.matches(film, query))
+                .collect(Collectors.toList());
+    }
+
+    private void cache(Film film, long generation) {
+        if (!RoutingContext.useReplica()) {
+            filmCache.put(film, generation);
+        }
+    }
+
+    private void register(Long filmId, LocalDate releaseDate, List<Genre> genres) {
+        List<Integer> genreIds = genres == null ? List.of() : genres.stream()
+                .map(Genre::getId)
+                .collect(Collectors.toList());
+        leaderboard.register(filmId, releaseDate.getYear(), genreIds);
+    }
+
+    @Override
+    @ReadOnlyQuery
+    public List<Film> findByIds(List<Long> filmIds) {
+        if (filmIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Film> filmsById = new HashMap<>();
+        List<Long> missedIds = new ArrayList<>();
+        long generation = filmCache.generation();
+        for (Long filmId : filmIds) {
+            filmCache.get(filmId).ifPresentOrElse(film -> filmsById.put(filmId, film), () -> missedIds.add(filmId));
+        }
+        if (!missedIds.isEmpty()) {
+            List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(missedIds));
+            List<Film> loaded = new ArrayList<>(distinctIds.size());
+            for (int from = 0; from < distinctIds.size(); from += BATCH_SIZE) {
+                List<Long> chunk = distinctIds.subList(from, Math.min(from + BATCH_SIZE, distinctIds.size()));
+                loaded.addAll(jdbcTemplate.query(findByIdsQuery(chunk.size()), this::makeFilm, chunk.toArray()));
+            }
+            setGenresForFilms(loaded);
+            for (Film film : loaded) {
+                cache(film, generation);
+                filmsById.put(film.getId(), film);
+            }
+        }
+
+        return filmIds.stream()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    static String findByIdsQuery(int size) {
+        return "SELECT * FROM movies WHERE film_id IN (" + String.join(",", Collections.nCopies(size, "?")) + ")";
     }
 
     private void setGenresForFilms(List<Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
         Set<Long> filmIds = films.stream()
                 .map(Film::getId)
                 .collect(Collectors.toSet());
@@ -158,14 +394,22 @@ public class FilmDbStorage implements FilmStorage {
         }
     }
 
-    protected static Film makeFilm(ResultSet rs, int rowNum) throws SQLException {
+    private Film makeFilmText(ResultSet rs, int rowNum) throws SQLException {
+        return Film.builder()
+                .id(rs.getLong("film_id"))
+                .name(rs.getString("title"))
+                .description(rs.getString("description"))
+                .build();
+    }
+
+    private Film makeFilm(ResultSet rs, int rowNum) throws SQLException {
         return Film.builder()
                 .id(rs.getLong("film_id"))
                 .name(rs.getString("title"))
                 .description(rs.getString("description"))
                 .releaseDate(rs.getDate("release_date").toLocalDate())
                 .duration(rs.getInt("duration"))
-                .mpa(Mpa.builder().id(rs.getInt("mpa_id")).name(rs.getString("name")).build())
+                .mpa(mpaStorage.getMpa(rs.getInt("mpa_id")))
                 .build();
     }
 }
\ No newline at end of file
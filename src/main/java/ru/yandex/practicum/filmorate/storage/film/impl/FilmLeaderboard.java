@@ -0,0 +1,228 @@
+package ru.yandex.practicum.filmorate.storage.film.impl;
+
+import lombok.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+@Component
+public class FilmLeaderboard {
+
+    private static final Comparator<Entry> RANKING = Comparator.comparingLong(Entry::getLikes).reversed()
+            .thenComparingLong(Entry::getFilmId);
+    private static final int OPTIMISTIC_READS = 3;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, List<Bucket>> filmBuckets = new ConcurrentHashMap<>();
+    private final Map<Bucket, NavigableSet<Entry>> buckets = new ConcurrentHashMap<>();
+    private final NavigableSet<Entry> ranking = new ConcurrentSkipListSet<>(RANKING);
+    private volatile long version;
+
+    public synchronized void clear() {
+        version++;
+        try {
+            clearEntries();
+        } finally {
+            version++;
+        }
+    }
+
+    public synchronized void load(Long filmId, long likes, Integer year, Collection<Integer> genreIds) {
+        version++;
+        try {
+            loadEntry(filmId, likes, year, genreIds);
+        } finally {
+            version++;
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public synchronized void register(Long filmId, Integer year, Collection<Integer> genreIds) {
+        version++;
+        try {
+            Entry entry = entries.get(filmId);
+            if (entry != null) {
+                remove(entry);
+            }
+            filmBuckets.put(filmId, bucketsOf(year, genreIds));
+            put(entry == null ? new Entry(filmId, 0) : entry);
+        } finally {
+            version++;
+        }
+    }
+
+    public void increment(Long filmId) {
+        change(filmId, 1);
+    }
+
+    public void decrement(Long filmId) {
+        change(filmId, -1);
+    }
+
+    public List<Long> top(long size) {
+        return top(null, size);
+    }
+
+    public List<Long> top(long size, Integer genreId, Integer year) {
+        if (genreId == null && year == null) {
+            return top(size);
+        }
+        return top(new Bucket(genreId, year), size);
+    }
+
+    public synchronized void write(DataOutput out) throws IOException {
+        out.writeInt(entries.size());
+        for (Entry entry : entries.values()) {
+            Integer year = null;
+            List<Integer> genreIds = new ArrayList<>();
+            for (Bucket bucket : filmBuckets.getOrDefault(entry.getFilmId(), List.of())) {
+                if (bucket.getGenreId() == null) {
+                    year = bucket.getYear();
+                } else if (bucket.getYear() == null) {
+                    genreIds.add(bucket.getGenreId());
+                }
+            }
+            out.writeLong(entry.getFilmId());
+            out.writeLong(entry.getLikes());
+            out.writeInt(year == null ? Integer.MIN_VALUE : year);
+            out.writeInt(genreIds.size());
+            for (Integer genreId : genreIds) {
+                out.writeInt(genreId);
+            }
+        }
+    }
+
+    public synchronized void read(DataInput in) throws IOException {
+        version++;
+        try {
+            clearEntries();
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                long filmId = in.readLong();
+                long likes = in.readLong();
+                int year = in.readInt();
+                List<Integer> genreIds = new ArrayList<>();
+                for (int genres = in.readInt(); genres > 0; genres--) {
+                    genreIds.add(in.readInt());
+                }
+                loadEntry(filmId, likes, year == Integer.MIN_VALUE ? null : year, genreIds);
+            }
+        } finally {
+            version++;
+        }
+    }
+
+    private void clearEntries() {
+        entries.clear();
+        filmBuckets.clear();
+        buckets.clear();
+        ranking.clear();
+    }
+
+    private void loadEntry(Long filmId, long likes, Integer year, Collection<Integer> genreIds) {
+        Entry old = entries.get(filmId);
+        if (old != null) {
+            remove(old);
+        }
+        filmBuckets.put(filmId, bucketsOf(year, genreIds));
+        put(new Entry(filmId, likes));
+    }
+
+    private List<Long> top(Bucket bucket, long size) {
+        for (int attempt = 0; attempt < OPTIMISTIC_READS; attempt++) {
+            long before = version;
+            if ((before & 1) == 0) {
+                List<Long> filmIds = collect(bucket, size);
+                if (version == before) {
+                    return filmIds;
+                }
+            }
+        }
+        synchronized (this) {
+            return collect(bucket, size);
+        }
+    }
+
+    private List<Long> collect(Bucket bucket, long size) {
+        List<Long> filmIds = new ArrayList<>();
+        NavigableSet<Entry> entries = bucket == null ? ranking : buckets.get(bucket);
+        if (entries == null) {
+            return filmIds;
+        }
+        for (Entry entry : entries) {
+            if (filmIds.size() >= size) {
+                break;
+            }
+            filmIds.add(entry.getFilmId());
+        }
+        return filmIds;
+    }
+
+    private synchronized void change(Long filmId, long delta) {
+        version++;
+        try {
+            Entry old = entries.get(filmId);
+            long likes = old == null ? 0 : old.getLikes();
+            if (old != null) {
+                remove(old);
+            }
+            put(new Entry(filmId, Math.max(0, likes + delta)));
+        } finally {
+            version++;
+        }
+    }
+
+    private void put(Entry entry) {
+        entries.put(entry.getFilmId(), entry);
+        ranking.add(entry);
+        for (Bucket bucket : filmBuckets.getOrDefault(entry.getFilmId(), List.of())) {
+            buckets.computeIfAbsent(bucket, key -> new ConcurrentSkipListSet<>(RANKING)).add(entry);
+        }
+    }
+
+    private void remove(Entry entry) {
+        ranking.remove(entry);
+        for (Bucket bucket : filmBuckets.getOrDefault(entry.getFilmId(), List.of())) {
+            NavigableSet<Entry> bucketEntries = buckets.get(bucket);
+            if (bucketEntries != null) {
+                bucketEntries.remove(entry);
+            }
+        }
+    }
+
+    private static List<Bucket> bucketsOf(Integer year, Collection<Integer> genreIds) {
+        List<Bucket> result = new ArrayList<>();
+        if (year != null) {
+            result.add(new Bucket(null, year));
+        }
+        if (genreIds != null) {
+            for (Integer genreId : new LinkedHashSet<>(genreIds)) {
+                result.add(new Bucket(genreId, null));
+                if (year != null) {
+                    result.add(new Bucket(genreId, year));
+                }
+            }
+        }
+        return result;
+    }
+
+    @Value
+    private static class Entry {
+        long filmId;
+        long likes;
+    }
+
+    @Value
+    private static class Bucket {
+        Integer genreId;
+        Integer year;
+    }
+}
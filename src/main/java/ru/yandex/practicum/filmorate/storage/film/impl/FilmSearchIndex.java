@@ -0,0 +1,388 @@
+package ru.yandex.practicum.filmorate.storage.film.impl;
+
+import lombok.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+@Component
+public class FilmSearchIndex {
+
+    private static final int NAME_EXACT = 4;
+    private static final int NAME_PREFIX = 3;
+    private static final int DESCRIPTION_EXACT = 2;
+    private static final int DESCRIPTION_PREFIX = 1;
+    private static final long[] EMPTY = new long[0];
+
+    private final Field names = new Field();
+    private final Field descriptions = new Field();
+
+    public synchronized void clear() {
+        names.clear();
+        descriptions.clear();
+    }
+
+    public synchronized void add(Film film) {
+        names.index(film.getId(), tokenize(film.getName()));
+        descriptions.index(film.getId(), tokenize(film.getDescription()));
+    }
+
+    public synchronized void addAll(Collection<Film> films) {
+        films.forEach(this::add);
+    }
+
+    public synchronized void update(Film previous, Film film) {
+        names.unindex(previous.getId(), tokenize(previous.getName()));
+        descriptions.unindex(previous.getId(), tokenize(previous.getDescription()));
+        add(film);
+    }
+
+    public synchronized void write(DataOutput out) throws IOException {
+        names.write(out);
+        descriptions.write(out);
+    }
+
+    public synchronized void read(DataInput in) throws IOException {
+        clear();
+        names.read(in);
+        descriptions.read(in);
+    }
+
+    public int tokens() {
+        return names.tokens.size() + descriptions.tokens.size();
+    }
+
+    public List<Long> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        String prefix = terms.get(terms.size() - 1);
+        Set<String> exactTerms = new LinkedHashSet<>(terms.subList(0, terms.size() - 1));
+        if (exactTerms.isEmpty()) {
+            return searchByPrefix(prefix, limit);
+        }
+        Candidates candidates = null;
+        for (String term : exactTerms) {
+            Candidates matched = exactMatches(term);
+            candidates = candidates == null ? matched : candidates.intersect(matched);
+            if (candidates.size == 0) {
+                return List.of();
+            }
+        }
+        return candidates.withPrefix(prefixScores(prefix, candidates)).top(limit);
+    }
+
+    public static boolean matches(Film film, String query) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return false;
+        }
+        Set<String> tokens = new HashSet<>(tokenize(film.getName()));
+        tokens.addAll(tokenize(film.getDescription()));
+        String prefix = terms.get(terms.size() - 1);
+        return tokens.containsAll(terms.subList(0, terms.size() - 1))
+                && tokens.stream().anyMatch(token -> token.startsWith(prefix));
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean letter = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private List<Long> searchByPrefix(String prefix, int limit) {
+        List<Long> result = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        collect(List.of(names.slice(prefix)), limit, result, seen);
+        collect(names.longer(prefix), limit, result, seen);
+        collect(List.of(descriptions.slice(prefix)), limit, result, seen);
+        collect(descriptions.longer(prefix), limit, result, seen);
+        return result;
+    }
+
+    private static void collect(List<Slice> slices, int limit, List<Long> result, Set<Long> seen) {
+        if (result.size() >= limit || slices.isEmpty()) {
+            return;
+        }
+        PriorityQueue<int[]> cursors = new PriorityQueue<>(slices.size(),
+                Comparator.comparingLong((int[] cursor) -> slices.get(cursor[0]).getIds()[cursor[1]]));
+        for (int i = 0; i < slices.size(); i++) {
+            if (slices.get(i).getSize() > 0) {
+                cursors.add(new int[]{i, 0});
+            }
+        }
+        while (!cursors.isEmpty() && result.size() < limit) {
+            int[] cursor = cursors.poll();
+            Slice slice = slices.get(cursor[0]);
+            long filmId = slice.getIds()[cursor[1]];
+            if (seen.add(filmId)) {
+                result.add(filmId);
+            }
+            if (++cursor[1] < slice.getSize()) {
+                cursors.add(cursor);
+            }
+        }
+    }
+
+    private Candidates exactMatches(String term) {
+        Slice name = names.slice(term);
+        Slice description = descriptions.slice(term);
+        Candidates candidates = new Candidates(name.getSize() + description.getSize());
+        int i = 0;
+        int j = 0;
+        while (i < name.getSize() || j < description.getSize()) {
+            long nameId = i < name.getSize() ? name.getIds()[i] : Long.MAX_VALUE;
+            long descriptionId = j < description.getSize() ? description.getIds()[j] : Long.MAX_VALUE;
+            if (nameId <= descriptionId) {
+                candidates.append(nameId, NAME_EXACT);
+                i++;
+                if (nameId == descriptionId) {
+                    j++;
+                }
+            } else {
+                candidates.append(descriptionId, DESCRIPTION_EXACT);
+                j++;
+            }
+        }
+        return candidates;
+    }
+
+    private int[] prefixScores(String prefix, Candidates candidates) {
+        int[] best = new int[candidates.size];
+        score(names, prefix, candidates, best, NAME_EXACT, NAME_PREFIX);
+        score(descriptions, prefix, candidates, best, DESCRIPTION_EXACT, DESCRIPTION_PREFIX);
+        return best;
+    }
+
+    private static void score(Field field, String prefix, Candidates candidates, int[] best,
+                              int exactScore, int prefixScore) {
+        for (Map.Entry<String, Postings> entry : field.range(prefix).entrySet()) {
+            int score = entry.getKey().equals(prefix) ? exactScore : prefixScore;
+            Slice slice = entry.getValue().slice();
+            if (slice.getSize() < candidates.size) {
+                for (int i = 0; i < slice.getSize(); i++) {
+                    int position = Arrays.binarySearch(candidates.ids, 0, candidates.size, slice.getIds()[i]);
+                    if (position >= 0) {
+                        best[position] = Math.max(best[position], score);
+                    }
+                }
+            } else {
+                for (int i = 0; i < candidates.size; i++) {
+                    if (best[i] < score && Arrays.binarySearch(slice.getIds(), 0, slice.getSize(), candidates.ids[i]) >= 0) {
+                        best[i] = score;
+                    }
+                }
+            }
+        }
+    }
+
+    private static class Field {
+        private final NavigableMap<String, Postings> tokens = new ConcurrentSkipListMap<>();
+        private final Map<String, Postings> lookup = new ConcurrentHashMap<>();
+
+        void clear() {
+            tokens.clear();
+            lookup.clear();
+        }
+
+        void index(long filmId, List<String> words) {
+            for (String word : new HashSet<>(words)) {
+                Postings postings = lookup.get(word);
+                if (postings == null) {
+                    postings = new Postings();
+                    tokens.put(word, postings);
+                    lookup.put(word, postings);
+                }
+                postings.add(filmId);
+            }
+        }
+
+        void unindex(long filmId, List<String> words) {
+            for (String word : new HashSet<>(words)) {
+                Postings postings = lookup.get(word);
+                if (postings != null && postings.remove(filmId) && postings.slice().getSize() == 0) {
+                    tokens.remove(word);
+                    lookup.remove(word);
+                }
+            }
+        }
+
+        void write(DataOutput out) throws IOException {
+            out.writeInt(tokens.size());
+            for (Map.Entry<String, Postings> entry : tokens.entrySet()) {
+                Slice slice = entry.getValue().slice();
+                out.writeUTF(entry.getKey());
+                out.writeInt(slice.getSize());
+                for (int i = 0; i < slice.getSize(); i++) {
+                    out.writeLong(slice.getIds()[i]);
+                }
+            }
+        }
+
+        void read(DataInput in) throws IOException {
+            for (int words = in.readInt(); words > 0; words--) {
+                String word = in.readUTF();
+                long[] ids = new long[in.readInt()];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = in.readLong();
+                }
+                Postings postings = new Postings();
+                postings.slice = new Slice(ids, ids.length);
+                tokens.put(word, postings);
+                lookup.put(word, postings);
+            }
+        }
+
+        Slice slice(String word) {
+            Postings postings = lookup.get(word);
+            return postings == null ? Slice.EMPTY_SLICE : postings.slice();
+        }
+
+        NavigableMap<String, Postings> range(String prefix) {
+            return tokens.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        }
+
+        List<Slice> longer(String prefix) {
+            List<Slice> slices = new ArrayList<>();
+            for (Postings postings : tokens.subMap(prefix, false, prefix + Character.MAX_VALUE, false).values()) {
+                slices.add(postings.slice());
+            }
+            return slices;
+        }
+    }
+
+    private static class Postings {
+        private volatile Slice slice = Slice.EMPTY_SLICE;
+
+        Slice slice() {
+            return slice;
+        }
+
+        void add(long filmId) {
+            Slice current = slice;
+            long[] ids = current.getIds();
+            int size = current.getSize();
+            int insertAt = size;
+            if (size > 0 && ids[size - 1] >= filmId) {
+                int index = Arrays.binarySearch(ids, 0, size, filmId);
+                if (index >= 0) {
+                    return;
+                }
+                insertAt = -index - 1;
+            }
+            if (insertAt == size && size < ids.length) {
+                ids[size] = filmId;
+                slice = new Slice(ids, size + 1);
+                return;
+            }
+            long[] updated = new long[Math.max(4, size * 2)];
+            System.arraycopy(ids, 0, updated, 0, insertAt);
+            updated[insertAt] = filmId;
+            System.arraycopy(ids, insertAt, updated, insertAt + 1, size - insertAt);
+            slice = new Slice(updated, size + 1);
+        }
+
+        boolean remove(long filmId) {
+            Slice current = slice;
+            int size = current.getSize();
+            int index = Arrays.binarySearch(current.getIds(), 0, size, filmId);
+            if (index < 0) {
+                return false;
+            }
+            long[] updated = new long[Math.max(4, size - 1)];
+            System.arraycopy(current.getIds(), 0, updated, 0, index);
+            System.arraycopy(current.getIds(), index + 1, updated, index, size - index - 1);
+            slice = new Slice(updated, size - 1);
+            return true;
+        }
+    }
+
+    @Value
+    private static class Slice {
+        static final Slice EMPTY_SLICE = new Slice(EMPTY, 0);
+
+        long[] ids;
+        int size;
+    }
+
+    private static class Candidates {
+        private final long[] ids;
+        private final int[] scores;
+        private int size;
+
+        Candidates(int capacity) {
+            this.ids = new long[capacity];
+            this.scores = new int[capacity];
+        }
+
+        void append(long filmId, int score) {
+            ids[size] = filmId;
+            scores[size++] = score;
+        }
+
+        Candidates intersect(Candidates other) {
+            Candidates result = new Candidates(Math.min(size, other.size));
+            int i = 0;
+            int j = 0;
+            while (i < size && j < other.size) {
+                if (ids[i] < other.ids[j]) {
+                    i++;
+                } else if (ids[i] > other.ids[j]) {
+                    j++;
+                } else {
+                    result.append(ids[i], scores[i] + other.scores[j]);
+                    i++;
+                    j++;
+                }
+            }
+            return result;
+        }
+
+        Candidates withPrefix(int[] prefixScores) {
+            Candidates result = new Candidates(size);
+            for (int i = 0; i < size; i++) {
+                if (prefixScores[i] > 0) {
+                    result.append(ids[i], scores[i] + prefixScores[i]);
+                }
+            }
+            return result;
+        }
+
+        List<Long> top(int limit) {
+            Comparator<Integer> ranking = Comparator.<Integer>comparingInt(i -> scores[i]).reversed()
+                    .thenComparingLong(i -> ids[i]);
+            PriorityQueue<Integer> worstFirst = new PriorityQueue<>(ranking.reversed());
+            for (int i = 0; i < size; i++) {
+                worstFirst.add(i);
+                if (worstFirst.size() > limit) {
+                    worstFirst.poll();
+                }
+            }
+            List<Integer> best = new ArrayList<>(worstFirst);
+            best.sort(ranking);
+            List<Long> result = new ArrayList<>(best.size());
+            best.forEach(i -> result.add(ids[i]));
+            return result;
+        }
+    }
+}
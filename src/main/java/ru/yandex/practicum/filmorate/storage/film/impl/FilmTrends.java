@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.storage.film.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+@Component
+public class FilmTrends {
+
+    public static final Duration GRANULARITY = Duration.ofHours(1);
+
+    private static final long BUCKET_MS = GRANULARITY.toMillis();
+
+    private final Duration retention;
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    public FilmTrends(@Value("${filmorate.trending.retention:7d}") Duration retention) {
+        this.retention = retention;
+        this.buckets = new AtomicReferenceArray<>((int) Math.max(1, retention.toMillis() / BUCKET_MS) + 1);
+        clear();
+    }
+
+    public Duration getRetention() {
+        return retention;
+    }
+
+    public void clear() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, new Bucket(-1));
+        }
+    }
+
+    public void add(long filmId, long likedAt) {
+        change(filmId, likedAt, 1);
+    }
+
+    public void remove(long filmId, long likedAt) {
+        change(filmId, likedAt, -1);
+    }
+
+    public List<Long> top(Duration window, long now, int limit) {
+        validateWindow(window);
+        long current = now / BUCKET_MS;
+        long first = current - window.toMillis() / BUCKET_MS + 1;
+        Map<Long, Long> scores = new HashMap<>();
+        for (long index = first; index <= current; index++) {
+            Bucket bucket = buckets.get(slot(index));
+            if (bucket.index == index) {
+                bucket.likes.forEach((filmId, likes) -> scores.merge(filmId, likes.sum(), Long::sum));
+            }
+        }
+        Comparator<Map.Entry<Long, Long>> ranking = Map.Entry.<Long, Long>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey());
+        PriorityQueue<Map.Entry<Long, Long>> worstFirst = new PriorityQueue<>(ranking.reversed());
+        for (Map.Entry<Long, Long> entry : scores.entrySet()) {
+            if (entry.getValue() <= 0) {
+                continue;
+            }
+            worstFirst.add(entry);
+            if (worstFirst.size() > limit) {
+                worstFirst.poll();
+            }
+        }
+        List<Map.Entry<Long, Long>> best = new ArrayList<>(worstFirst);
+        best.sort(ranking);
+        List<Long> result = new ArrayList<>(best.size());
+        best.forEach(entry -> result.add(entry.getKey()));
+        return result;
+    }
+
+    private void validateWindow(Duration window) {
+        if (window.isNegative() || window.isZero() || window.compareTo(retention) > 0) {
+            log.info("Окно трендов {} вне допустимого диапазона", window);
+            throw new ValidationException("Окно трендов должно быть больше нуля и не больше " + retention);
+        }
+        if (window.toMillis() % BUCKET_MS != 0) {
+            log.info("Окно трендов {} не кратно {}", window, GRANULARITY);
+            throw new ValidationException("Окно трендов должно быть кратно " + GRANULARITY
+                    + ": лайки считаются по часовым интервалам");
+        }
+    }
+
+    private void change(long filmId, long likedAt, long delta) {
+        long index = likedAt / BUCKET_MS;
+        int slot = slot(index);
+        while (true) {
+            Bucket bucket = buckets.get(slot);
+            if (bucket.index > index) {
+                return;
+            }
+            if (bucket.index < index) {
+                if (delta < 0) {
+                    return;
+                }
+                Bucket fresh = new Bucket(index);
+                if (!buckets.compareAndSet(slot, bucket, fresh)) {
+                    continue;
+                }
+                bucket = fresh;
+            }
+            bucket.likes.computeIfAbsent(filmId, id -> new LongAdder()).add(delta);
+            if (buckets.get(slot) == bucket) {
+                return;
+            }
+        }
+    }
+
+    private int slot(long index) {
+        return (int) Math.floorMod(index, (long) buckets.length());
+    }
+
+    private static class Bucket {
+        private final Map<Long, LongAdder> likes = new ConcurrentHashMap<>();
+        private final long index;
+
+        private Bucket(long index) {
+            this.index = index;
+        }
+    }
+}
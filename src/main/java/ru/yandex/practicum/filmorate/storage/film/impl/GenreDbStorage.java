@@ -1,81 +1,116 @@
 package ru.yandex.practicum.filmorate.storage.film.impl;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
 import ru.yandex.practicum.filmorate.storage.film.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.routing.ReadOnlyQuery;
 
+import javax.annotation.PostConstruct;
+import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Component
+@Profile("!memory")
 public class GenreDbStorage implements GenreStorage {
 
+    static final String FILM_GENRES_BY_ID_QUERY = "SELECT genre_id FROM movie_genres WHERE film_id = ? ORDER BY genre_id";
+
     private final JdbcTemplate jdbcTemplate;
+    private final ChangeVersions changeVersions;
+    private final long missRefreshIntervalMs;
+    private volatile Map<Integer, Genre> genres = Collections.emptyMap();
+    private volatile long loadedVersion = -1;
+    private volatile long nextMissRefreshAt;
 
-    public GenreDbStorage(JdbcTemplate jdbcTemplate) {
+    public GenreDbStorage(JdbcTemplate jdbcTemplate, ChangeVersions changeVersions,
+                          @Value("${filmorate.reference.miss-refresh-interval:30s}") Duration missRefreshInterval) {
         this.jdbcTemplate = jdbcTemplate;
+        this.changeVersions = changeVersions;
+        this.missRefreshIntervalMs = missRefreshInterval.toMillis();
     }
 
-    @Override
-    public List<Genre> findAll() {
-        List<Genre> genres = new ArrayList<>();
+    @PostConstruct
+    public synchronized void refresh() {
+        Map<Integer, Genre> loaded = new LinkedHashMap<>();
         String sqlQuery = "SELECT * FROM genres ORDER by genre_id";
         SqlRowSet genreRow = jdbcTemplate.queryForRowSet(sqlQuery);
         while (genreRow.next()) {
-            genres.add(makeGenre(genreRow));
+            Genre genre = makeGenre(genreRow);
+            loaded.put(genre.getId(), genre);
         }
-        return genres;
+        if (!loaded.equals(genres)) {
+            genres = Collections.unmodifiableMap(loaded);
+            changeVersions.bump(ChangeVersions.Kind.REFERENCE);
+        }
+        loadedVersion = changeVersions.get(ChangeVersions.Kind.REFERENCE);
+        nextMissRefreshAt = System.currentTimeMillis() + missRefreshIntervalMs;
+        log.info("Загружен справочник жанров: {}", genres.size());
     }
 
     @Override
-    public Genre getGenre(Integer id) {
-        String sqlQuery = "SELECT * FROM genres WHERE genre_id = ?";
+    public List<Genre> findAll() {
+        return new ArrayList<>(genres.values());
+    }
 
-        SqlRowSet genreRow = jdbcTemplate.queryForRowSet(sqlQuery, id);
-        if (genreRow.next()) {
-            return makeGenre(genreRow);
-        } else {
+    @Override
+    public Genre getGenre(Integer id) {
+        Genre genre = genres.get(id);
+        if (genre == null && refreshOnMiss()) {
+            genre = genres.get(id);
+        }
+        if (genre == null) {
             log.info("Жанр с id {} не найден", id);
             throw new FilmNotFoundException("Жанра с id " + id + " не существует.");
         }
+        return genre;
+    }
+
+    private boolean refreshOnMiss() {
+        if (!referenceChanged() && System.currentTimeMillis() < nextMissRefreshAt) {
+            return false;
+        }
+        synchronized (this) {
+            if (referenceChanged() || System.currentTimeMillis() >= nextMissRefreshAt) {
+                refresh();
+            }
+        }
+        return true;
+    }
+
+    private boolean referenceChanged() {
+        return changeVersions.get(ChangeVersions.Kind.REFERENCE) != loadedVersion;
     }
 
     @Override
+    @ReadOnlyQuery
     public List<Genre> getFilmGenresById(Long id) {
-        String sqlQuery = "SELECT g.genre_id, g.name " +
-                "FROM movie_genres mg JOIN genres g " +
-                "ON mg.genre_id = g.genre_id " +
-                "WHERE mg.film_id = ?";
         List<Genre> filmGenres = new ArrayList<>();
-        SqlRowSet genreRows = jdbcTemplate.queryForRowSet(sqlQuery, id);
+        SqlRowSet genreRows = jdbcTemplate.queryForRowSet(FILM_GENRES_BY_ID_QUERY, id);
         while (genreRows.next()) {
-            filmGenres.add(makeGenre(genreRows));
+            filmGenres.add(getGenre(genreRows.getInt("genre_id")));
         }
-        return filmGenres.stream()
-                .sorted(Comparator.comparing(Genre::getId))
-                .collect(Collectors.toList());
+        return filmGenres;
     }
 
+    @ReadOnlyQuery
     public Map<Long, Set<Genre>> getFilmGenres(Collection<Long> filmIds) {
-        String sqlQuery = "SELECT mg.film_id, g.genre_id, g.name " +
-                "FROM movie_genres mg " +
-                "JOIN genres g ON mg.genre_id = g.genre_id " +
-                "WHERE mg.film_id IN (" + String.join(",", Collections.nCopies(filmIds.size(), "?")) + ")";
-
         Map<Long, Set<Genre>> filmGenresMap = new HashMap<>();
-        jdbcTemplate.query(sqlQuery, preparedStatement -> {
+        jdbcTemplate.query(filmGenresQuery(filmIds.size()), preparedStatement -> {
             int i = 1;
             for (Long filmId : filmIds) {
                 preparedStatement.setLong(i++, filmId);
             }
         }, resultSet -> {
             Long filmId = resultSet.getLong("film_id");
-            Genre genre = new Genre(resultSet.getInt("genre_id"), resultSet.getString("name"));
+            Genre genre = getGenre(resultSet.getInt("genre_id"));
             Set<Genre> genres = filmGenresMap.computeIfAbsent(filmId, k -> new LinkedHashSet<>());
             genres.add(genre);
         });
@@ -83,10 +118,17 @@ public class GenreDbStorage implements GenreStorage {
         return filmGenresMap;
     }
 
+    static String filmGenresQuery(int size) {
+        return "SELECT film_id, genre_id " +
+                "FROM movie_genres " +
+                "WHERE film_id IN (" + String.join(",", Collections.nCopies(size, "?")) + ") " +
+                "ORDER BY film_id, genre_id";
+    }
+
     protected static Genre makeGenre(SqlRowSet genreRow) {
         return new Genre(
                 genreRow.getInt("genre_id"),
                 genreRow.getString("name")
         );
     }
-}
\ No newline at end of file
+}
@@ -1,76 +1,149 @@
 package ru.yandex.practicum.filmorate.storage.film.impl;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.MpaStorage;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Component
+@Profile("memory")
 @Slf4j
 public class InMemoryFilmStorage implements FilmStorage {
 
-    private final Map<Long, Film> films = new HashMap<>();
-    private Long id = 1L;
+    private final ConcurrentNavigableMap<Long, Film> films = new ConcurrentSkipListMap<>();
+    private final AtomicLong id = new AtomicLong();
+    private final InMemoryGenreStorage genreStorage;
+    private final MpaStorage mpaStorage;
+    private final FilmLeaderboard leaderboard;
+    private final FilmSearchIndex searchIndex;
+    private final ChangeVersions changeVersions;
+
+    public InMemoryFilmStorage(InMemoryGenreStorage genreStorage, MpaStorage mpaStorage, FilmLeaderboard leaderboard,
+                               FilmSearchIndex searchIndex, ChangeVersions changeVersions) {
+        this.genreStorage = genreStorage;
+        this.mpaStorage = mpaStorage;
+        this.leaderboard = leaderboard;
+        this.searchIndex = searchIndex;
+        this.changeVersions = changeVersions;
+    }
 
     @Override
     public Collection<Film> findAll() {
         log.info("Текущее количество фильмов: {}", films.size());
-        return films.values();
+        return new ArrayList<>(films.values());
+    }
+
+    @Override
+    public List<Film> findPage(long afterId, int limit) {
+        return films.tailMap(afterId, false)
+                .values()
+                .stream()
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void streamAll(Consumer<Film> action) {
+        films.values().forEach(action);
     }
 
     @Override
     public Film create(Film film) {
         film.setId(generateId());
-        films.put(film.getId(), film);
+        film.setGenres(genreStorage.setFilmGenres(film.getId(), film.getGenres()));
+        films.put(film.getId(), normalize(film));
+        register(film);
+        searchIndex.add(film);
+        changeVersions.bump(ChangeVersions.Kind.FILMS);
         log.info("Добавлен фильм: {}", film);
         return film;
     }
 
+    @Override
+    public List<Film> createAll(List<Film> films) {
+        films.forEach(this::create);
+        return films;
+    }
+
     @Override
     public Optional<Film> update(Film film) {
-        if (films.containsKey(film.getId())) {
-            films.put(film.getId(), film);
-            log.info("Обновлен фильм: {}", film);
-            return Optional.of(film);
-        } else {
-            log.info("Фильм с id {} не найден", film.getId());
-            throw new FilmNotFoundException("Фильма с id " + film.getId() + " не существует.");
-        }
+        film.setGenres(genreStorage.resolveGenres(film.getGenres()));
+        Film normalized = normalize(film);
+        Film old;
+        do {
+            old = films.get(film.getId());
+            if (old == null) {
+                log.info("Фильм с id {} не найден", film.getId());
+                return Optional.empty();
+            }
+        } while (!films.replace(film.getId(), old, normalized));
+        genreStorage.setFilmGenres(film.getId(), normalized.getGenres());
+        searchIndex.update(old, normalized);
+        register(normalized);
+        changeVersions.bump(ChangeVersions.Kind.FILMS);
+        log.info("Обновлен фильм: {}", film);
+        return Optional.of(film);
     }
 
     @Override
     public Optional<Film> getFilm(Long id) {
-        if (id <= 0) {
-            log.info("id {} должен быть больше ноля", id);
-            throw new FilmNotFoundException("id должен быть больше ноля");
-        }
-        Film film = films.get(id);
-        if (film == null) {
-            log.info("Фильм с id {} не найден", id);
-            throw new FilmNotFoundException("Фильма с id " + id + " не существует.");
-        }
-        return Optional.of(film);
+        return Optional.ofNullable(films.get(id));
+    }
+
+    @Override
+    public boolean exists(Long id) {
+        return films.containsKey(id);
     }
 
     private Long generateId() {
-        return id++;
+        return id.incrementAndGet();
     }
 
     @Override
     public List<Film> getPopularFilms(long size) {
         log.info("Получить список популярных фильмов: {}", size);
-        return findAll()
-                .stream()
-                .sorted(this::compare)
-                .limit(size)
+        return findByIds(leaderboard.top(size));
+    }
+
+    @Override
+    public List<Film> getPopularFilms(long size, Integer genreId, Integer year) {
+        return findByIds(leaderboard.top(size, genreId, year));
+    }
+
+    @Override
+    public List<Film> search(String query, int limit) {
+        return findByIds(searchIndex.search(query, limit));
+    }
+
+    @Override
+    public List<Film> findByIds(List<Long> filmIds) {
+        return filmIds.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
-    private int compare(Film p0, Film p1) {
-        return p1.getLikes().size() - p0.getLikes().size();
+    private void register(Film film) {
+        leaderboard.register(film.getId(), film.getReleaseDate().getYear(), film.getGenres().stream()
+                .map(Genre::getId)
+                .collect(Collectors.toList()));
+    }
+
+    private Film normalize(Film film) {
+        return film.toBuilder()
+                .mpa(mpaStorage.getMpa(film.getMpa().getId()))
+                .genres(new ArrayList<>(film.getGenres()))
+                .build();
     }
 }
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.storage.film.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.film.GenreStorage;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+@Profile("memory")
+public class InMemoryGenreStorage implements GenreStorage {
+
+    private final Map<Integer, Genre> genres = new LinkedHashMap<>();
+    private final Map<Long, List<Genre>> filmGenres = new ConcurrentHashMap<>();
+
+    public InMemoryGenreStorage() {
+        List.of(new Genre(1, "Комедия"),
+                new Genre(2, "Драма"),
+                new Genre(3, "Мультфильм"),
+                new Genre(4, "Триллер"),
+                new Genre(5, "Документальный"),
+                new Genre(6, "Боевик"))
+                .forEach(genre -> genres.put(genre.getId(), genre));
+    }
+
+    @Override
+    public List<Genre> findAll() {
+        return new ArrayList<>(genres.values());
+    }
+
+    @Override
+    public Genre getGenre(Integer id) {
+        Genre genre = genres.get(id);
+        if (genre == null) {
+            log.info("Жанр с id {} не найден", id);
+            throw new FilmNotFoundException("Жанра с id " + id + " не существует.");
+        }
+        return genre;
+    }
+
+    @Override
+    public Map<Long, Set<Genre>> getFilmGenres(Collection<Long> filmIds) {
+        Map<Long, Set<Genre>> filmGenresMap = new HashMap<>();
+        for (Long filmId : filmIds) {
+            List<Genre> genresOfFilm = filmGenres.get(filmId);
+            if (genresOfFilm != null) {
+                filmGenresMap.put(filmId, new LinkedHashSet<>(genresOfFilm));
+            }
+        }
+        return filmGenresMap;
+    }
+
+    @Override
+    public List<Genre> getFilmGenresById(Long id) {
+        return new ArrayList<>(filmGenres.getOrDefault(id, Collections.emptyList()));
+    }
+
+    public List<Genre> resolveGenres(List<Genre> requested) {
+        return requested == null ? new ArrayList<>() : requested.stream()
+                .map(genre -> getGenre(genre.getId()))
+                .distinct()
+                .sorted(Comparator.comparing(Genre::getId))
+                .collect(Collectors.toList());
+    }
+
+    public List<Genre> setFilmGenres(Long filmId, List<Genre> requested) {
+        List<Genre> resolved = resolveGenres(requested);
+        filmGenres.put(filmId, resolved);
+        return new ArrayList<>(resolved);
+    }
+}
@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.storage.film.impl;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
+import ru.yandex.practicum.filmorate.storage.film.LikeStorage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@Profile("memory")
+public class InMemoryLikeStorage implements LikeStorage {
+
+    private final Map<Long, Map<Long, Long>> likes = new ConcurrentHashMap<>();
+    private final FilmLeaderboard leaderboard;
+    private final LikeMatrix likeMatrix;
+    private final FilmTrends filmTrends;
+    private final ChangeVersions changeVersions;
+
+    public InMemoryLikeStorage(FilmLeaderboard leaderboard, LikeMatrix likeMatrix, FilmTrends filmTrends,
+                               ChangeVersions changeVersions) {
+        this.leaderboard = leaderboard;
+        this.likeMatrix = likeMatrix;
+        this.filmTrends = filmTrends;
+        this.changeVersions = changeVersions;
+    }
+
+    @Override
+    public void addLike(Long filmId, Long userId) {
+        long likedAt = System.currentTimeMillis();
+        if (likes.computeIfAbsent(filmId, id -> new ConcurrentHashMap<>()).putIfAbsent(userId, likedAt) == null) {
+            leaderboard.increment(filmId);
+            likeMatrix.add(filmId, userId);
+            filmTrends.add(filmId, likedAt);
+            changeVersions.bump(ChangeVersions.Kind.LIKES);
+        }
+    }
+
+    @Override
+    public void deleteLike(Long filmId, Long userId) {
+        Map<Long, Long> users = likes.get(filmId);
+        Long likedAt = users == null ? null : users.remove(userId);
+        if (likedAt != null) {
+            leaderboard.decrement(filmId);
+            likeMatrix.remove(filmId, userId);
+            filmTrends.remove(filmId, likedAt);
+            changeVersions.bump(ChangeVersions.Kind.LIKES);
+        }
+    }
+
+    @Override
+    public List<Long> getTrendingFilmIds(Duration window, int limit) {
+        return filmTrends.top(window, System.currentTimeMillis(), limit);
+    }
+
+    @Override
+    public List<Long> getRecommendedFilmIds(Long userId, int limit) {
+        return likeMatrix.recommend(userId, limit);
+    }
+}
@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.storage.film.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.film.MpaStorage;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Component
+@Profile("memory")
+public class InMemoryMpaStorage implements MpaStorage {
+
+    private final Map<Integer, Mpa> ratings = new LinkedHashMap<>();
+
+    public InMemoryMpaStorage() {
+        List<String> names = List.of("G", "PG", "PG-13", "R", "NC-17");
+        for (int i = 0; i < names.size(); i++) {
+            ratings.put(i + 1, Mpa.builder().id(i + 1).name(names.get(i)).build());
+        }
+    }
+
+    @Override
+    public List<Mpa> findAll() {
+        return new ArrayList<>(ratings.values());
+    }
+
+    @Override
+    public Mpa getMpa(Integer id) {
+        Mpa mpa = ratings.get(id);
+        if (mpa == null) {
+            log.info("Mpa с id {} не найден", id);
+            throw new FilmNotFoundException("Mpa с id " + id + " не существует.");
+        }
+        return mpa;
+    }
+}
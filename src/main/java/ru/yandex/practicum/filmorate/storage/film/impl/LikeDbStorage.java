@@ -1,29 +1,205 @@
 package ru.yandex.practicum.filmorate.storage.film.impl;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.context.annotation.Profile;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
 import ru.yandex.practicum.filmorate.storage.film.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.journal.JournalReplay;
+import ru.yandex.practicum.filmorate.storage.snapshot.StartupSnapshot;
+
+import javax.annotation.PostConstruct;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component
+@Profile("!memory")
 public class LikeDbStorage implements LikeStorage {
 
+    private static final int LOOKUP_SIZE = 500;
+
+    static final String LOAD_TRENDS_QUERY = "SELECT film_id, liked_at FROM likes WHERE liked_at >= ?";
+    static final String DELETE_LIKE_QUERY =
+            "SELECT liked_at FROM OLD TABLE (DELETE FROM likes WHERE film_id = ? AND user_id = ?)";
+    static final String ADD_LIKES_QUERY = "INSERT INTO likes (film_id, user_id, liked_at) " +
+            "SELECT CAST(? AS INT), CAST(? AS INT), CAST(? AS TIMESTAMP) " +
+            "WHERE NOT EXISTS (SELECT 1 FROM likes WHERE film_id = ? AND user_id = ?)";
+    static final String DELETE_LIKES_QUERY = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
+
     private final JdbcTemplate jdbcTemplate;
+    private final FilmLeaderboard leaderboard;
+    private final LikeMatrix likeMatrix;
+    private final FilmTrends filmTrends;
+    private final ChangeVersions changeVersions;
+    private final ObjectProvider<JournalReplay> journalReplay;
+    private final StartupSnapshot startupSnapshot;
+    private final TransactionTemplate transactionTemplate;
 
-    public LikeDbStorage(JdbcTemplate jdbcTemplate) {
+    public LikeDbStorage(JdbcTemplate jdbcTemplate, FilmLeaderboard leaderboard, LikeMatrix likeMatrix,
+                         FilmTrends filmTrends, ChangeVersions changeVersions,
+                         ObjectProvider<JournalReplay> journalReplay, StartupSnapshot startupSnapshot,
+                         PlatformTransactionManager transactionManager) {
         this.jdbcTemplate = jdbcTemplate;
+        this.leaderboard = leaderboard;
+        this.likeMatrix = likeMatrix;
+        this.filmTrends = filmTrends;
+        this.changeVersions = changeVersions;
+        this.journalReplay = journalReplay;
+        this.startupSnapshot = startupSnapshot;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void loadLikes() {
+        loadTrends();
+        startupSnapshot.register("likes", likeMatrix::write);
+        if (startupSnapshot.restore("likes", likeMatrix::read)) {
+            return;
+        }
+        JournalReplay replay = journalReplay.getIfAvailable();
+        Optional<List<Like>> replayed = replay == null ? Optional.empty() : replay.likes();
+        likeMatrix.clear();
+        likeMatrix.load(replayed.orElseGet(() -> jdbcTemplate.query("SELECT film_id, user_id FROM likes",
+                (rs, rowNum) -> new Like(rs.getLong("film_id"), rs.getLong("user_id")))));
+        log.info("Загружена матрица лайков: {} пользователей", likeMatrix.users());
+    }
+
+    private void loadTrends() {
+        long since = System.currentTimeMillis() - filmTrends.getRetention().toMillis();
+        filmTrends.clear();
+        jdbcTemplate.query(LOAD_TRENDS_QUERY, rs -> {
+            filmTrends.add(rs.getLong("film_id"), rs.getTimestamp("liked_at").getTime());
+        }, new Timestamp(since));
     }
 
     @Override
     public void addLike(Long filmId, Long userId) {
-        String sqlQuery = "INSERT INTO likes (film_id, user_id) VALUES (?, ?)";
-        jdbcTemplate.update(sqlQuery, filmId, userId);
+        String sqlQuery = "INSERT INTO likes (film_id, user_id, liked_at) VALUES (?, ?, ?)";
+        long likedAt = System.currentTimeMillis();
+        jdbcTemplate.update(sqlQuery, filmId, userId, new Timestamp(likedAt));
+        leaderboard.increment(filmId);
+        likeMatrix.add(filmId, userId);
+        filmTrends.add(filmId, likedAt);
+        changeVersions.bump(ChangeVersions.Kind.LIKES);
     }
 
     @Override
     public void deleteLike(Long filmId, Long userId) {
-        String sqlQuery = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
-        jdbcTemplate.update(sqlQuery, filmId, userId);
+        List<Timestamp> deleted = jdbcTemplate.query(DELETE_LIKE_QUERY,
+                (rs, rowNum) -> rs.getTimestamp("liked_at"), filmId, userId);
+        if (!deleted.isEmpty()) {
+            leaderboard.decrement(filmId);
+            likeMatrix.remove(filmId, userId);
+            removeTrend(filmId, deleted.get(0));
+            changeVersions.bump(ChangeVersions.Kind.LIKES);
+        }
+    }
+
+    @Override
+    public List<Long> getTrendingFilmIds(Duration window, int limit) {
+        return filmTrends.top(window, System.currentTimeMillis(), limit);
+    }
+
+    @Override
+    public List<Long> getRecommendedFilmIds(Long userId, int limit) {
+        return likeMatrix.recommend(userId, limit);
+    }
+
+    public List<Like> addLikes(List<Like> likes) {
+        return applyBatch(ADD_LIKES_QUERY, likes, true);
+    }
+
+    public List<Like> deleteLikes(List<Like> likes) {
+        return applyBatch(DELETE_LIKES_QUERY, likes, false);
+    }
+
+    private Map<Like, Timestamp> findRecentLikedAt(List<Like> likes) {
+        Map<Like, Timestamp> likedAt = new HashMap<>();
+        long since = System.currentTimeMillis() - filmTrends.getRetention().toMillis();
+        for (int from = 0; from < likes.size(); from += LOOKUP_SIZE) {
+            List<Like> chunk = likes.subList(from, Math.min(from + LOOKUP_SIZE, likes.size()));
+            List<Object> params = new ArrayList<>();
+            chunk.forEach(like -> params.add(like.getFilmId()));
+            chunk.forEach(like -> {
+                params.add(like.getFilmId());
+                params.add(like.getUserId());
+            });
+            jdbcTemplate.query(likedAtQuery(chunk.size()), rs -> {
+                Timestamp timestamp = rs.getTimestamp("liked_at");
+                if (timestamp != null && timestamp.getTime() >= since) {
+                    likedAt.put(new Like(rs.getLong("film_id"), rs.getLong("user_id")), timestamp);
+                }
+            }, params.toArray());
+        }
+        return likedAt;
+    }
+
+    static String likedAtQuery(int size) {
+        return "SELECT film_id, user_id, liked_at FROM likes " +
+                "WHERE film_id IN (" + String.join(",", Collections.nCopies(size, "?")) + ") " +
+                "AND (film_id, user_id) IN (" + String.join(",", Collections.nCopies(size, "(?, ?)")) + ")";
+    }
+
+    private void removeTrend(long filmId, Timestamp likedAt) {
+        if (likedAt != null) {
+            filmTrends.remove(filmId, likedAt.getTime());
+        }
+    }
+
+    private List<Like> applyBatch(String sqlQuery, List<Like> likes, boolean added) {
+        if (likes.isEmpty()) {
+            return List.of();
+        }
+        long now = System.currentTimeMillis();
+        Map<Like, Timestamp> likedAt = added ? Map.of() : findRecentLikedAt(likes);
+        List<Object[]> rows = likes.stream()
+                .map(like -> added
+                        ? new Object[]{like.getFilmId(), like.getUserId(), new Timestamp(now),
+                                like.getFilmId(), like.getUserId()}
+                        : new Object[]{like.getFilmId(), like.getUserId()})
+                .collect(Collectors.toList());
+        int[] counts;
+        try {
+            counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(sqlQuery, rows));
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Пакет лайков отклонён и откачен, применяем по одному: {}", e.getMessage());
+            counts = new int[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                try {
+                    counts[i] = jdbcTemplate.update(sqlQuery, rows.get(i));
+                } catch (DataIntegrityViolationException rowException) {
+                    log.warn("Лайк {} отброшен: {}", likes.get(i), rowException.getMessage());
+                }
+            }
+        }
+        List<Like> applied = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                Like like = likes.get(i);
+                applied.add(like);
+                if (added) {
+                    leaderboard.increment(like.getFilmId());
+                    likeMatrix.add(like.getFilmId(), like.getUserId());
+                    filmTrends.add(like.getFilmId(), now);
+                } else {
+                    leaderboard.decrement(like.getFilmId());
+                    likeMatrix.remove(like.getFilmId(), like.getUserId());
+                    removeTrend(like.getFilmId(), likedAt.get(like));
+                }
+            }
+        }
+        if (!applied.isEmpty()) {
+            changeVersions.bump(ChangeVersions.Kind.LIKES);
+        }
+        return applied;
     }
 }
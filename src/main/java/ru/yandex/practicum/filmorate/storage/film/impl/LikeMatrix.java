@@ -0,0 +1,226 @@
+package ru.yandex.practicum.filmorate.storage.film.impl;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Like;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+
+@Component
+public class LikeMatrix {
+
+    private static final long[] EMPTY = new long[0];
+    private static final int NEIGHBOURS = 50;
+    private static final int LOCK_STRIPES = 64;
+
+    private final Map<Long, PostingList> filmsByUser = new ConcurrentHashMap<>();
+    private final Map<Long, PostingList> usersByFilm = new ConcurrentHashMap<>();
+    private final Object[] userLocks = new Object[LOCK_STRIPES];
+
+    public LikeMatrix() {
+        for (int i = 0; i < userLocks.length; i++) {
+            userLocks[i] = new Object();
+        }
+    }
+
+    public void clear() {
+        filmsByUser.clear();
+        usersByFilm.clear();
+    }
+
+    public void load(Collection<Like> likes) {
+        Map<Long, List<Long>> films = new HashMap<>();
+        Map<Long, List<Long>> users = new HashMap<>();
+        for (Like like : likes) {
+            films.computeIfAbsent(like.getUserId(), id -> new ArrayList<>()).add(like.getFilmId());
+            users.computeIfAbsent(like.getFilmId(), id -> new ArrayList<>()).add(like.getUserId());
+        }
+        films.forEach((userId, filmIds) -> filmsByUser.put(userId, new PostingList(toSortedArray(filmIds))));
+        users.forEach((filmId, userIds) -> usersByFilm.put(filmId, new PostingList(toSortedArray(userIds))));
+    }
+
+    public void write(DataOutput out) throws IOException {
+        Map<Long, long[]> snapshot = new HashMap<>();
+        filmsByUser.forEach((userId, filmIds) -> snapshot.put(userId, filmIds.toArray()));
+        out.writeInt(snapshot.size());
+        for (Map.Entry<Long, long[]> entry : snapshot.entrySet()) {
+            out.writeLong(entry.getKey());
+            out.writeInt(entry.getValue().length);
+            for (long filmId : entry.getValue()) {
+                out.writeLong(filmId);
+            }
+        }
+    }
+
+    public void read(DataInput in) throws IOException {
+        TreeMap<Long, long[]> films = new TreeMap<>();
+        Map<Long, Integer> counts = new HashMap<>();
+        for (int users = in.readInt(); users > 0; users--) {
+            long userId = in.readLong();
+            long[] filmIds = new long[in.readInt()];
+            for (int i = 0; i < filmIds.length; i++) {
+                filmIds[i] = in.readLong();
+                counts.merge(filmIds[i], 1, Integer::sum);
+            }
+            films.put(userId, filmIds);
+        }
+        Map<Long, long[]> users = new HashMap<>();
+        Map<Long, Integer> filled = new HashMap<>();
+        counts.forEach((filmId, count) -> users.put(filmId, new long[count]));
+        films.forEach((userId, filmIds) -> {
+            for (long filmId : filmIds) {
+                users.get(filmId)[filled.merge(filmId, 1, Integer::sum) - 1] = userId;
+            }
+        });
+        clear();
+        films.forEach((userId, filmIds) -> filmsByUser.put(userId, new PostingList(filmIds)));
+        users.forEach((filmId, userIds) -> usersByFilm.put(filmId, new PostingList(userIds)));
+    }
+
+    public void add(long filmId, long userId) {
+        synchronized (lockFor(userId)) {
+            filmsByUser.compute(userId, (id, filmIds) -> insert(filmIds, filmId));
+            usersByFilm.compute(filmId, (id, userIds) -> insert(userIds, userId));
+        }
+    }
+
+    public void remove(long filmId, long userId) {
+        synchronized (lockFor(userId)) {
+            filmsByUser.computeIfPresent(userId, (id, filmIds) -> delete(filmIds, filmId));
+            usersByFilm.computeIfPresent(filmId, (id, userIds) -> delete(userIds, userId));
+        }
+    }
+
+    public long[] filmsOf(long userId) {
+        PostingList filmIds = filmsByUser.get(userId);
+        return filmIds == null ? EMPTY : filmIds.toArray();
+    }
+
+    public int users() {
+        return filmsByUser.size();
+    }
+
+    public List<Long> recommend(long userId, int limit) {
+        long[] liked = filmsOf(userId);
+        if (liked.length == 0) {
+            return List.of();
+        }
+        Map<Long, Long> overlaps = new HashMap<>();
+        for (long filmId : liked) {
+            PostingList userIds = usersByFilm.get(filmId);
+            if (userIds != null) {
+                userIds.forEach(otherId -> {
+                    if (otherId != userId) {
+                        overlaps.merge(otherId, 1L, Long::sum);
+                    }
+                });
+            }
+        }
+        Map<Long, Long> scores = new HashMap<>();
+        for (Long neighbourId : top(overlaps, NEIGHBOURS)) {
+            long overlap = overlaps.get(neighbourId);
+            for (long filmId : filmsOf(neighbourId)) {
+                if (Arrays.binarySearch(liked, filmId) < 0) {
+                    scores.merge(filmId, overlap, Long::sum);
+                }
+            }
+        }
+        return top(scores, limit);
+    }
+
+    private Object lockFor(long userId) {
+        return userLocks[(int) Math.floorMod(userId, (long) LOCK_STRIPES)];
+    }
+
+    private static List<Long> top(Map<Long, Long> scores, int limit) {
+        Comparator<Map.Entry<Long, Long>> ranking = Map.Entry.<Long, Long>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey());
+        PriorityQueue<Map.Entry<Long, Long>> worstFirst = new PriorityQueue<>(ranking.reversed());
+        for (Map.Entry<Long, Long> entry : scores.entrySet()) {
+            worstFirst.add(entry);
+            if (worstFirst.size() > limit) {
+                worstFirst.poll();
+            }
+        }
+        List<Map.Entry<Long, Long>> best = new ArrayList<>(worstFirst);
+        best.sort(ranking);
+        List<Long> result = new ArrayList<>(best.size());
+        best.forEach(entry -> result.add(entry.getKey()));
+        return result;
+    }
+
+    private static long[] toSortedArray(List<Long> ids) {
+        return ids.stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+
+    private static PostingList insert(PostingList ids, long id) {
+        PostingList current = ids == null ? new PostingList(EMPTY) : ids;
+        current.add(id);
+        return current;
+    }
+
+    private static PostingList delete(PostingList ids, long id) {
+        ids.remove(id);
+        return ids.isEmpty() ? null : ids;
+    }
+
+    private static class PostingList {
+        private static final int INITIAL_CAPACITY = 4;
+
+        private long[] ids;
+        private int size;
+
+        private PostingList(long[] sorted) {
+            this.ids = sorted.length == 0 ? new long[INITIAL_CAPACITY] : sorted;
+            this.size = sorted.length;
+        }
+
+        private synchronized void add(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            int insertAt = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(INITIAL_CAPACITY, size + (size >> 1)));
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        private synchronized void remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            if (ids.length > INITIAL_CAPACITY && size < ids.length >> 2) {
+                ids = Arrays.copyOf(ids, Math.max(INITIAL_CAPACITY, ids.length >> 1));
+            }
+        }
+
+        private synchronized boolean isEmpty() {
+            return size == 0;
+        }
+
+        private synchronized long[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        private synchronized void forEach(LongConsumer action) {
+            for (int i = 0; i < size; i++) {
+                action.accept(ids[i]);
+            }
+        }
+    }
+}
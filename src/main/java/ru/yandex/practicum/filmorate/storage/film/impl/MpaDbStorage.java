@@ -1,44 +1,87 @@
 package ru.yandex.practicum.filmorate.storage.film.impl;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
 import ru.yandex.practicum.filmorate.storage.film.MpaStorage;
 
+import javax.annotation.PostConstruct;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.List;
+import java.time.Duration;
+import java.util.*;
 
 @Slf4j
 @Component
+@Profile("!memory")
 public class MpaDbStorage implements MpaStorage {
 
     private final JdbcTemplate jdbcTemplate;
+    private final ChangeVersions changeVersions;
+    private final long missRefreshIntervalMs;
+    private volatile Map<Integer, Mpa> ratings = Collections.emptyMap();
+    private volatile long loadedVersion = -1;
+    private volatile long nextMissRefreshAt;
 
-    public MpaDbStorage(JdbcTemplate jdbcTemplate) {
+    public MpaDbStorage(JdbcTemplate jdbcTemplate, ChangeVersions changeVersions,
+                        @Value("${filmorate.reference.miss-refresh-interval:30s}") Duration missRefreshInterval) {
         this.jdbcTemplate = jdbcTemplate;
+        this.changeVersions = changeVersions;
+        this.missRefreshIntervalMs = missRefreshInterval.toMillis();
     }
 
-    @Override
-    public List<Mpa> findAll() {
+    @PostConstruct
+    public synchronized void refresh() {
+        Map<Integer, Mpa> loaded = new LinkedHashMap<>();
         String sqlQuery = "SELECT * FROM mpa ORDER by mpa_id";
+        jdbcTemplate.query(sqlQuery, MpaDbStorage::makeMpa)
+                .forEach(mpa -> loaded.put(mpa.getId(), mpa));
+        if (!loaded.equals(ratings)) {
+            ratings = Collections.unmodifiableMap(loaded);
+            changeVersions.bump(ChangeVersions.Kind.REFERENCE);
+        }
+        loadedVersion = changeVersions.get(ChangeVersions.Kind.REFERENCE);
+        nextMissRefreshAt = System.currentTimeMillis() + missRefreshIntervalMs;
+        log.info("Загружен справочник Mpa: {}", ratings.size());
+    }
 
-        return jdbcTemplate.query(sqlQuery, MpaDbStorage::makeMpa);
+    @Override
+    public List<Mpa> findAll() {
+        return new ArrayList<>(ratings.values());
     }
 
     @Override
     public Mpa getMpa(Integer id) {
-        String sqlQuery = "SELECT * FROM mpa WHERE mpa_id = ?";
-
-        return jdbcTemplate.query(sqlQuery, MpaDbStorage::makeMpa, id)
-                .stream()
-                .findFirst()
-                .orElseThrow(() -> {
-                    log.info("Mpa с id {} не найден", id);
-                    throw new FilmNotFoundException("Mpa с id " + id + " не существует.");
-                });
+        Mpa mpa = ratings.get(id);
+        if (mpa == null && refreshOnMiss()) {
+            mpa = ratings.get(id);
+        }
+        if (mpa == null) {
+            log.info("Mpa с id {} не найден", id);
+            throw new FilmNotFoundException("Mpa с id " + id + " не существует.");
+        }
+        return mpa;
+    }
+
+    private boolean refreshOnMiss() {
+        if (!referenceChanged() && System.currentTimeMillis() < nextMissRefreshAt) {
+            return false;
+        }
+        synchronized (this) {
+            if (referenceChanged() || System.currentTimeMillis() >= nextMissRefreshAt) {
+                refresh();
+            }
+        }
+        return true;
+    }
+
+    private boolean referenceChanged() {
+        return changeVersions.get(ChangeVersions.Kind.REFERENCE) != loadedVersion;
     }
 
     private static Mpa makeMpa(ResultSet rs, int rowNum) throws SQLException {
@@ -47,4 +90,4 @@ public class MpaDbStorage implements MpaStorage {
                 .name(rs.getString("name"))
                 .build();
     }
-}
\ No newline at end of file
+}
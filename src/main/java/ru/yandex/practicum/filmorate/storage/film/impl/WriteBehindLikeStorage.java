@@ -0,0 +1,186 @@
+package ru.yandex.practicum.filmorate.storage.film.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.StorageOverloadedException;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.film.LikeStorage;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Slf4j
+@Component
+@Profile("!memory")
+@Primary
+@ConditionalOnProperty(name = "filmorate.likes.write-behind.enabled", havingValue = "true")
+public class WriteBehindLikeStorage implements LikeStorage {
+
+    private final LikeDbStorage likeDbStorage;
+    private final int capacity;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private Map<Like, Boolean> pending = new LinkedHashMap<>();
+    private ScheduledExecutorService flusher;
+
+    public WriteBehindLikeStorage(LikeDbStorage likeDbStorage,
+                                  @Value("${filmorate.likes.write-behind.capacity:10000}") int capacity,
+                                  @Value("${filmorate.likes.write-behind.flush-interval-ms:200}") long flushIntervalMs,
+                                  @Value("${filmorate.likes.write-behind.offer-timeout-ms:1000}") long offerTimeoutMs) {
+        this.likeDbStorage = likeDbStorage;
+        this.capacity = capacity;
+        this.flushIntervalMs = flushIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "likes-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Включена отложенная запись лайков: буфер {}, интервал {} мс", capacity, flushIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(offerTimeoutMs, TimeUnit.MILLISECONDS);
+        flush();
+        log.info("Буфер лайков сброшен при остановке.");
+    }
+
+    @Override
+    public void addLike(Long filmId, Long userId) {
+        offer(new Like(filmId, userId), true);
+    }
+
+    @Override
+    public void deleteLike(Long filmId, Long userId) {
+        offer(new Like(filmId, userId), false);
+    }
+
+    @Override
+    public List<Long> getTrendingFilmIds(Duration window, int limit) {
+        return likeDbStorage.getTrendingFilmIds(window, limit);
+    }
+
+    @Override
+    public List<Long> getRecommendedFilmIds(Long userId, int limit) {
+        return likeDbStorage.getRecommendedFilmIds(userId, limit);
+    }
+
+    private void offer(Like like, boolean added) {
+        boolean full;
+        lock.lock();
+        try {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+            while (pending.size() >= capacity && !pending.containsKey(like)) {
+                long nanos = deadline - System.nanoTime();
+                if (nanos <= 0) {
+                    log.warn("Буфер лайков переполнен, лайк {} отклонён", like);
+                    throw new StorageOverloadedException("Сервис перегружен, повторите запрос позже.");
+                }
+                if (flushInBackground()) {
+                    notFull.awaitNanos(nanos);
+                } else {
+                    lock.unlock();
+                    try {
+                        flushQuietly();
+                    } finally {
+                        lock.lock();
+                    }
+                }
+            }
+            pending.put(like, added);
+            full = pending.size() >= capacity;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageOverloadedException("Запрос прерван, повторите позже.");
+        } finally {
+            lock.unlock();
+        }
+        if (full) {
+            scheduleFlush();
+        }
+    }
+
+    private void scheduleFlush() {
+        if (!flushInBackground()) {
+            flushQuietly();
+        }
+    }
+
+    private boolean flushInBackground() {
+        if (flusher.isShutdown()) {
+            return false;
+        }
+        try {
+            flusher.execute(this::flushQuietly);
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.debug("Фоновая запись лайков остановлена, сбрасываем буфер синхронно.");
+            return false;
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Не удалось записать лайки, повторим позже: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void flush() {
+        Map<Like, Boolean> batch;
+        lock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new LinkedHashMap<>();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        List<Like> added = new ArrayList<>();
+        List<Like> deleted = new ArrayList<>();
+        batch.forEach((like, isAdded) -> (isAdded ? added : deleted).add(like));
+        try {
+            likeDbStorage.addLikes(added);
+            likeDbStorage.deleteLikes(deleted);
+            log.debug("Записано лайков: {}, удалено: {}", added.size(), deleted.size());
+        } catch (RuntimeException e) {
+            lock.lock();
+            try {
+                batch.forEach(pending::putIfAbsent);
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import ru.yandex.practicum.filmorate.model.Like;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static ru.yandex.practicum.filmorate.storage.journal.JournalRecord.Type.*;
+
+@Aspect
+public class JournalAspect {
+    private static final String LIKES = "execution(* ru.yandex.practicum.filmorate.storage.film.impl.LikeDbStorage.";
+    private static final String FRIENDS = "execution(* ru.yandex.practicum.filmorate.storage.user.impl.FriendDbStorage.";
+
+    private final MutationJournal journal;
+
+    public JournalAspect(MutationJournal journal) {
+        this.journal = journal;
+    }
+
+    @AfterReturning(LIKES + "addLike(..)) && args(filmId, userId)")
+    public void likeAdded(Long filmId, Long userId) {
+        journal.append(new JournalRecord(LIKE_ADDED, filmId, userId));
+    }
+
+    @AfterReturning(LIKES + "deleteLike(..)) && args(filmId, userId)")
+    public void likeDeleted(Long filmId, Long userId) {
+        journal.append(new JournalRecord(LIKE_REMOVED, filmId, userId));
+    }
+
+    @AfterReturning(pointcut = LIKES + "addLikes(..))", returning = "applied")
+    public void likesAdded(List<Like> applied) {
+        journal.append(toRecords(LIKE_ADDED, applied));
+    }
+
+    @AfterReturning(pointcut = LIKES + "deleteLikes(..))", returning = "applied")
+    public void likesDeleted(List<Like> applied) {
+        journal.append(toRecords(LIKE_REMOVED, applied));
+    }
+
+    @AfterReturning(FRIENDS + "addFriend(..)) && args(userId, friendId)")
+    public void friendAdded(Long userId, Long friendId) {
+        journal.append(new JournalRecord(FRIEND_ADDED, userId, friendId));
+    }
+
+    @AfterReturning(FRIENDS + "deleteFriend(..)) && args(userId, friendId)")
+    public void friendDeleted(Long userId, Long friendId) {
+        journal.append(new JournalRecord(FRIEND_REMOVED, userId, friendId));
+    }
+
+    private static List<JournalRecord> toRecords(JournalRecord.Type type, List<Like> likes) {
+        return likes.stream()
+                .map(like -> new JournalRecord(type, like.getFilmId(), like.getUserId()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+
+@Configuration
+@Profile("!memory")
+@ConditionalOnProperty(name = "filmorate.journal.enabled", havingValue = "true")
+public class JournalConfig {
+
+    @Bean(destroyMethod = "close")
+    public MutationJournal mutationJournal(@Value("${filmorate.journal.dir:./journal}") String directory,
+                                           @Value("${filmorate.journal.segment-bytes:67108864}") long segmentBytes,
+                                           @Value("${filmorate.journal.compact-after-segments:4}") int compactAfterSegments) {
+        return new MutationJournal(Path.of(directory), segmentBytes, compactAfterSegments);
+    }
+
+    @Bean
+    public JournalAspect journalAspect(MutationJournal journal) {
+        return new JournalAspect(journal);
+    }
+
+    @Bean
+    public JournalReplay journalReplay(MutationJournal journal, JdbcTemplate jdbcTemplate) {
+        return new JournalReplay(journal, jdbcTemplate);
+    }
+}
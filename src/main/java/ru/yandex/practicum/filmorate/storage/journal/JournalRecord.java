@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import lombok.Value;
+
+@Value
+public class JournalRecord {
+
+    public enum Type {
+        LIKE_ADDED,
+        LIKE_REMOVED,
+        FRIEND_ADDED,
+        FRIEND_REMOVED
+    }
+
+    Type type;
+    long first;
+    long second;
+}
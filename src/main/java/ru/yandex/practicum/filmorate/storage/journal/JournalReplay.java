@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import ru.yandex.practicum.filmorate.model.Like;
+
+import java.util.*;
+
+@Slf4j
+public class JournalReplay {
+
+    private final MutationJournal journal;
+    private final JdbcTemplate jdbcTemplate;
+    private boolean rebuilt;
+
+    public JournalReplay(MutationJournal journal, JdbcTemplate jdbcTemplate) {
+        this.journal = journal;
+        this.jdbcTemplate = jdbcTemplate;
+        if (journal.isEmpty()) {
+            rebuild();
+        }
+    }
+
+    public Optional<List<Like>> likes() {
+        Set<Like> likes = new LinkedHashSet<>();
+        journal.replay(record -> {
+            if (record.getType() == JournalRecord.Type.LIKE_ADDED) {
+                likes.add(new Like(record.getFirst(), record.getSecond()));
+            } else if (record.getType() == JournalRecord.Type.LIKE_REMOVED) {
+                likes.remove(new Like(record.getFirst(), record.getSecond()));
+            }
+        });
+        if (!matches("likes", likes.size())) {
+            return Optional.empty();
+        }
+        log.info("Лайки восстановлены из журнала: {}", likes.size());
+        return Optional.of(new ArrayList<>(likes));
+    }
+
+    public Optional<Map<Long, long[]>> friends() {
+        Map<Long, NavigableSet<Long>> friends = new HashMap<>();
+        journal.replay(record -> {
+            if (record.getType() == JournalRecord.Type.FRIEND_ADDED) {
+                friends.computeIfAbsent(record.getFirst(), id -> new TreeSet<>()).add(record.getSecond());
+            } else if (record.getType() == JournalRecord.Type.FRIEND_REMOVED) {
+                Set<Long> userFriends = friends.get(record.getFirst());
+                if (userFriends != null) {
+                    userFriends.remove(record.getSecond());
+                }
+            }
+        });
+        Map<Long, long[]> result = new HashMap<>();
+        long count = 0;
+        for (Map.Entry<Long, NavigableSet<Long>> entry : friends.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                result.put(entry.getKey(), entry.getValue().stream().mapToLong(Long::longValue).toArray());
+                count += entry.getValue().size();
+            }
+        }
+        if (!matches("friends", count)) {
+            return Optional.empty();
+        }
+        log.info("Дружба восстановлена из журнала: {} пользователей", result.size());
+        return Optional.of(result);
+    }
+
+    private boolean matches(String table, long replayed) {
+        Long stored = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        if (stored != null && stored == replayed) {
+            return true;
+        }
+        log.warn("Журнал расходится с таблицей {}: {} против {}, журнал будет перестроен", table, replayed, stored);
+        rebuild();
+        return false;
+    }
+
+    private synchronized void rebuild() {
+        if (rebuilt) {
+            return;
+        }
+        rebuilt = true;
+        journal.rewrite(consumer -> {
+            jdbcTemplate.query("SELECT film_id, user_id FROM likes", (RowCallbackHandler) rs -> consumer.accept(
+                    new JournalRecord(JournalRecord.Type.LIKE_ADDED, rs.getLong("film_id"), rs.getLong("user_id"))));
+            jdbcTemplate.query("SELECT user_id, friend_id FROM friends", (RowCallbackHandler) rs -> consumer.accept(
+                    new JournalRecord(JournalRecord.Type.FRIEND_ADDED, rs.getLong("user_id"), rs.getLong("friend_id"))));
+        });
+    }
+}
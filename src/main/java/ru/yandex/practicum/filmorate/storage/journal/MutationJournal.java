@@ -0,0 +1,405 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+@Slf4j
+public class MutationJournal implements AutoCloseable {
+    static final int RECORD_BYTES = 1 + Long.BYTES + Long.BYTES + Integer.BYTES;
+    private static final String SUFFIX = ".log";
+    private static final int WRITE_BUFFER_RECORDS = 1024;
+    private static final JournalRecord.Type[] TYPES = JournalRecord.Type.values();
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int compactAfterSegments;
+    private final ExecutorService compactor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("journal-compactor-"));
+
+    private final Object writeLock = new Object();
+    private final Object syncLock = new Object();
+    private final Object compactionLock = new Object();
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(RECORD_BYTES * WRITE_BUFFER_RECORDS);
+    private final CRC32 writeCrc = new CRC32();
+    private final List<Path> sealed = new ArrayList<>();
+    private FileChannel active;
+    private Path activePath;
+    private long activeBytes;
+    private long written;
+    private long synced;
+    private boolean syncing;
+
+    public MutationJournal(Path directory, long segmentBytes, int compactAfterSegments) {
+        this.directory = directory;
+        this.segmentBytes = Math.max(RECORD_BYTES, segmentBytes - segmentBytes % RECORD_BYTES);
+        this.compactAfterSegments = Math.max(2, compactAfterSegments);
+        try {
+            Files.createDirectories(directory);
+            deleteTemporaryFiles();
+            List<Path> segments = segments();
+            if (segments.isEmpty()) {
+                openSegment(0);
+            } else {
+                sealed.addAll(segments.subList(0, segments.size() - 1));
+                Path last = segments.get(segments.size() - 1);
+                long valid = validLength(last);
+                active = FileChannel.open(last, StandardOpenOption.WRITE);
+                activePath = last;
+                if (valid < active.size()) {
+                    log.warn("Журнал {} обрезан до {} байт после неполной записи", last.getFileName(), valid);
+                    active.truncate(valid);
+                }
+                active.position(valid);
+                activeBytes = valid;
+                written = sequenceOf(last) + valid / RECORD_BYTES;
+            }
+            synced = written;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Открыт журнал изменений {}: {} сегментов, {} записей", directory, sealed.size() + 1, written);
+    }
+
+    public boolean isEmpty() {
+        synchronized (writeLock) {
+            return written == 0;
+        }
+    }
+
+    public void append(JournalRecord record) {
+        append(List.of(record));
+    }
+
+    public void append(List<JournalRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        long sequence;
+        synchronized (writeLock) {
+            write(records);
+            sequence = written;
+        }
+        awaitDurable(sequence);
+    }
+
+    public void replay(Consumer<JournalRecord> consumer) {
+        synchronized (compactionLock) {
+            List<Path> segments;
+            synchronized (writeLock) {
+                segments = new ArrayList<>(sealed);
+                segments.add(activePath);
+            }
+            for (Path segment : segments) {
+                read(segment, consumer);
+            }
+        }
+    }
+
+    public void rewrite(Consumer<Consumer<JournalRecord>> source) {
+        synchronized (compactionLock) {
+            synchronized (writeLock) {
+                try {
+                    active.close();
+                    for (Path segment : segments()) {
+                        Files.delete(segment);
+                    }
+                    sealed.clear();
+                    written = 0;
+                    openSegment(0);
+                    List<JournalRecord> batch = new ArrayList<>(WRITE_BUFFER_RECORDS);
+                    source.accept(record -> {
+                        batch.add(record);
+                        if (batch.size() == WRITE_BUFFER_RECORDS) {
+                            write(batch);
+                            batch.clear();
+                        }
+                    });
+                    write(batch);
+                    active.force(false);
+                    synced = written;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        log.info("Журнал изменений перезаписан: {} записей", written);
+    }
+
+    public void compact() {
+        synchronized (compactionLock) {
+            List<Path> segments;
+            synchronized (writeLock) {
+                segments = new ArrayList<>(sealed);
+            }
+            if (segments.size() < compactAfterSegments) {
+                return;
+            }
+            Set<Key> live = new LinkedHashSet<>();
+            for (Path segment : segments) {
+                read(segment, record -> {
+                    switch (record.getType()) {
+                        case LIKE_ADDED:
+                            live.add(new Key(true, record.getFirst(), record.getSecond()));
+                            break;
+                        case LIKE_REMOVED:
+                            live.remove(new Key(true, record.getFirst(), record.getSecond()));
+                            break;
+                        case FRIEND_ADDED:
+                            live.add(new Key(false, record.getFirst(), record.getSecond()));
+                            break;
+                        case FRIEND_REMOVED:
+                            live.remove(new Key(false, record.getFirst(), record.getSecond()));
+                            break;
+                    }
+                });
+            }
+            Path target = segments.get(0);
+            Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_BYTES * WRITE_BUFFER_RECORDS);
+                    CRC32 crc = new CRC32();
+                    for (Key key : live) {
+                        if (!buffer.hasRemaining()) {
+                            flush(channel, buffer);
+                        }
+                        encode(buffer, crc, new JournalRecord(key.isLike() ? JournalRecord.Type.LIKE_ADDED
+                                : JournalRecord.Type.FRIEND_ADDED, key.getFirst(), key.getSecond()));
+                    }
+                    flush(channel, buffer);
+                    channel.force(false);
+                }
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                for (Path segment : segments.subList(1, segments.size())) {
+                    Files.delete(segment);
+                }
+                synchronized (writeLock) {
+                    sealed.removeAll(segments.subList(1, segments.size()));
+                }
+            } catch (IOException e) {
+                log.warn("Не удалось сжать журнал изменений: {}", e.getMessage());
+                return;
+            }
+            log.info("Журнал изменений сжат: {} сегментов, {} актуальных записей", segments.size(), live.size());
+        }
+    }
+
+    public int segmentCount() {
+        synchronized (writeLock) {
+            return sealed.size() + 1;
+        }
+    }
+
+    @Override
+    public void close() throws IOException, InterruptedException {
+        compactor.shutdown();
+        compactor.awaitTermination(10, TimeUnit.SECONDS);
+        synchronized (writeLock) {
+            active.force(false);
+            active.close();
+        }
+    }
+
+    private void write(List<JournalRecord> records) {
+        try {
+            for (JournalRecord record : records) {
+                if (!writeBuffer.hasRemaining()) {
+                    flush(active, writeBuffer);
+                }
+                encode(writeBuffer, writeCrc, record);
+                written++;
+                activeBytes += RECORD_BYTES;
+                if (activeBytes >= segmentBytes) {
+                    flush(active, writeBuffer);
+                    roll();
+                }
+            }
+            flush(active, writeBuffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void roll() throws IOException {
+        active.force(false);
+        active.close();
+        sealed.add(activePath);
+        openSegment(written);
+        if (sealed.size() >= compactAfterSegments) {
+            compactor.execute(this::compact);
+        }
+    }
+
+    private void awaitDurable(long sequence) {
+        boolean interrupted = false;
+        try {
+            synchronized (syncLock) {
+                while (synced < sequence && syncing) {
+                    try {
+                        syncLock.wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (synced >= sequence) {
+                    return;
+                }
+                syncing = true;
+            }
+            long target;
+            FileChannel channel;
+            synchronized (writeLock) {
+                target = written;
+                channel = active;
+            }
+            boolean forced = false;
+            try {
+                channel.force(false);
+                forced = true;
+            } catch (ClosedChannelException e) {
+                forced = true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                synchronized (syncLock) {
+                    if (forced) {
+                        synced = Math.max(synced, target);
+                    }
+                    syncing = false;
+                    syncLock.notifyAll();
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void read(Path segment, Consumer<JournalRecord> consumer) {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = channel.size() - channel.size() % RECORD_BYTES;
+            if (size == 0) {
+                return;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 crc = new CRC32();
+            while (buffer.remaining() >= RECORD_BYTES) {
+                JournalRecord record = decode(buffer, crc);
+                if (record == null) {
+                    log.warn("Повреждённая запись в журнале {} на позиции {}", segment.getFileName(),
+                            buffer.position() - RECORD_BYTES);
+                    return;
+                }
+                consumer.accept(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long validLength(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = channel.size() - channel.size() % RECORD_BYTES;
+            if (size == 0) {
+                return 0;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 crc = new CRC32();
+            long valid = 0;
+            while (buffer.remaining() >= RECORD_BYTES && decode(buffer, crc) != null) {
+                valid += RECORD_BYTES;
+            }
+            return valid;
+        }
+    }
+
+    private static void encode(ByteBuffer buffer, CRC32 crc, JournalRecord record) {
+        int start = buffer.position();
+        buffer.put((byte) record.getType().ordinal())
+                .putLong(record.getFirst())
+                .putLong(record.getSecond());
+        crc.reset();
+        crc.update(buffer.duplicate().position(start).limit(buffer.position()));
+        buffer.putInt((int) crc.getValue());
+    }
+
+    private static JournalRecord decode(ByteBuffer buffer, CRC32 crc) {
+        int start = buffer.position();
+        int type = buffer.get();
+        long first = buffer.getLong();
+        long second = buffer.getLong();
+        crc.reset();
+        crc.update(buffer.duplicate().position(start).limit(buffer.position()));
+        int checksum = buffer.getInt();
+        if (checksum != (int) crc.getValue() || type < 0 || type >= TYPES.length) {
+            return null;
+        }
+        return new JournalRecord(TYPES[type], first, second);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void openSegment(long sequence) throws IOException {
+        activePath = directory.resolve(String.format("%020d%s", sequence, SUFFIX));
+        active = FileChannel.open(activePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        activeBytes = 0;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().matches("\\d{20}\\" + SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private void deleteTemporaryFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.filter(file -> file.getFileName().toString().matches("\\d{20}\\" + SUFFIX + "\\.tmp"))
+                    .collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    @Value
+    private static class Key {
+        boolean like;
+        long first;
+        long second;
+    }
+}
@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.storage.routing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+@Aspect
+public class ReadOnlyQueryAspect {
+
+    @Around("@annotation(ru.yandex.practicum.filmorate.storage.routing.ReadOnlyQuery)")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean previous = RoutingContext.setReadOnly(true);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            RoutingContext.setReadOnly(previous);
+        }
+    }
+}
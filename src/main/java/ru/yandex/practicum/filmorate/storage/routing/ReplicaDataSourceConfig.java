@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.storage.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnProperty(name = "filmorate.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource replicaDataSource(@Value("${filmorate.datasource.replica.url}") String url,
+                                              @Value("${filmorate.datasource.replica.username:sa}") String username,
+                                              @Value("${filmorate.datasource.replica.password:}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica) {
+        return new ReplicaRoutingDataSource(primary, replica);
+    }
+
+    @Bean
+    public ReadOnlyQueryAspect readOnlyQueryAspect() {
+        return new ReadOnlyQueryAspect();
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+            @Value("${filmorate.datasource.replica.sticky-ms:5000}") long stickyMillis) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(stickyMillis));
+        registration.addUrlPatterns("/*");
+        return registration;
+    }
+
+    @Bean
+    public TaskDecorator readYourWritesTaskDecorator() {
+        return task -> {
+            boolean sticky = RoutingContext.isSticky();
+            return () -> {
+                boolean previous = RoutingContext.setSticky(sticky);
+                try {
+                    task.run();
+                } finally {
+                    RoutingContext.setSticky(previous);
+                }
+            };
+        };
+    }
+
+    @Bean(destroyMethod = "stop")
+    @ConditionalOnProperty(name = "filmorate.datasource.replica.stand-in.enabled", havingValue = "true")
+    public ReplicationStandIn replicationStandIn(@Qualifier("primaryDataSource") DataSource primary,
+                                                 @Qualifier("replicaDataSource") HikariDataSource replica,
+                                                 @Value("${filmorate.datasource.replica.stand-in.lag-ms:1000}") long lagMillis) {
+        DataSource writer = new DriverManagerDataSource(replica.getJdbcUrl(), replica.getUsername(), replica.getPassword());
+        return new ReplicationStandIn(primary, writer, lagMillis);
+    }
+}
@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.storage.routing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public class ReplicationStandIn {
+    private static final List<String> TABLES = List.of("genres", "mpa", "users", "movies", "movie_genres",
+            "likes", "friends");
+    private static final int BATCH_SIZE = 1000;
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("replication-stand-in-"));
+
+    public ReplicationStandIn(DataSource primary, DataSource replica, long lagMillis) {
+        this.primary = primary;
+        this.replica = replica;
+        Flyway.configure()
+                .dataSource(replica)
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+        scheduler.scheduleWithFixedDelay(this::syncQuietly, lagMillis, lagMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    public synchronized void sync() throws SQLException {
+        try (Connection source = primary.getConnection(); Connection target = replica.getConnection()) {
+            target.setAutoCommit(false);
+            try (Statement statement = target.createStatement()) {
+                statement.execute("SET REFERENTIAL_INTEGRITY FALSE");
+                try {
+                    for (String table : TABLES) {
+                        copy(source, target, table);
+                    }
+                    target.commit();
+                } catch (SQLException e) {
+                    target.rollback();
+                    throw e;
+                } finally {
+                    statement.execute("SET REFERENTIAL_INTEGRITY TRUE");
+                }
+            }
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (SQLException e) {
+            log.warn("Не удалось синхронизировать реплику: {}", e.getMessage());
+        }
+    }
+
+    private static void copy(Connection source, Connection target, String table) throws SQLException {
+        try (Statement select = source.createStatement();
+             ResultSet rs = select.executeQuery("SELECT * FROM " + table);
+             Statement delete = target.createStatement()) {
+            delete.executeUpdate("DELETE FROM " + table);
+            ResultSetMetaData metaData = rs.getMetaData();
+            int columns = metaData.getColumnCount();
+            StringBuilder names = new StringBuilder();
+            StringBuilder params = new StringBuilder();
+            for (int i = 1; i <= columns; i++) {
+                names.append(i == 1 ? "" : ", ").append(metaData.getColumnName(i));
+                params.append(i == 1 ? "?" : ", ?");
+            }
+            String sqlQuery = "INSERT INTO " + table + " (" + names + ") VALUES (" + params + ")";
+            try (PreparedStatement insert = target.prepareStatement(sqlQuery)) {
+                int batched = 0;
+                while (rs.next()) {
+                    for (int i = 1; i <= columns; i++) {
+                        insert.setObject(i, rs.getObject(i));
+                    }
+                    insert.addBatch();
+                    if (++batched % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.storage.routing;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+public final class RoutingContext {
+    private static final ThreadLocal<Boolean> READ_ONLY = ThreadLocal.withInitial(() -> false);
+    private static final ThreadLocal<Boolean> STICKY = ThreadLocal.withInitial(() -> false);
+
+    private RoutingContext() {
+    }
+
+    public static boolean useReplica() {
+        return READ_ONLY.get() && !STICKY.get() && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    public static boolean setReadOnly(boolean readOnly) {
+        boolean previous = READ_ONLY.get();
+        READ_ONLY.set(readOnly);
+        return previous;
+    }
+
+    public static boolean isSticky() {
+        return STICKY.get();
+    }
+
+    public static boolean setSticky(boolean sticky) {
+        boolean previous = STICKY.get();
+        STICKY.set(sticky);
+        return previous;
+    }
+
+    public static <T> T onPrimary(Supplier<T> action) {
+        boolean previous = setSticky(true);
+        try {
+            return action.get();
+        } finally {
+            setSticky(previous);
+        }
+    }
+}
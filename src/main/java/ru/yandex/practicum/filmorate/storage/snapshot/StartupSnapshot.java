@@ -0,0 +1,173 @@
+package ru.yandex.practicum.filmorate.storage.snapshot;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.service.StorageExecutor;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Component
+@Profile("!memory")
+public class StartupSnapshot {
+    private static final int MAGIC = 0x464C4D53;
+    private static final int FORMAT_VERSION = 1;
+
+    public interface Writer {
+        void write(DataOutput out) throws IOException;
+    }
+
+    public interface Reader {
+        void read(DataInput in) throws IOException;
+    }
+
+    private final boolean enabled;
+    private final Path path;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<StorageExecutor> storageExecutor;
+    private final Map<String, Writer> writers = new LinkedHashMap<>();
+    private final Map<String, byte[]> sections = new ConcurrentHashMap<>();
+    private volatile boolean restored;
+    private volatile boolean ready;
+
+    public StartupSnapshot(@Value("${filmorate.snapshot.enabled:false}") boolean enabled,
+                           @Value("${filmorate.snapshot.path:./db/filmorate.snapshot}") String path,
+                           JdbcTemplate jdbcTemplate,
+                           ObjectProvider<StorageExecutor> storageExecutor) {
+        this.enabled = enabled;
+        this.path = Path.of(path);
+        this.jdbcTemplate = jdbcTemplate;
+        this.storageExecutor = storageExecutor;
+    }
+
+    @PostConstruct
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        if (!Files.exists(path)) {
+            jdbcTemplate.update("DELETE FROM snapshot_marker");
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                log.warn("Снимок {} записан в другом формате и будет пропущен", path);
+                return;
+            }
+            String token = in.readUTF();
+            if (jdbcTemplate.update("DELETE FROM snapshot_marker WHERE token = ?", token) == 0) {
+                log.warn("Снимок {} не соответствует базе данных и будет пропущен", path);
+                return;
+            }
+            for (int count = in.readInt(); count > 0; count--) {
+                String name = in.readUTF();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                sections.put(name, bytes);
+            }
+            restored = true;
+            log.info("Прочитан снимок {}: {} разделов", path, sections.size());
+        } catch (IOException e) {
+            sections.clear();
+            log.warn("Не удалось прочитать снимок {}: {}", path, e.getMessage());
+        } finally {
+            jdbcTemplate.update("DELETE FROM snapshot_marker");
+            deleteQuietly(path);
+        }
+    }
+
+    public boolean restore(String name, Reader reader) {
+        byte[] bytes = sections.remove(name);
+        if (bytes == null) {
+            return false;
+        }
+        try {
+            reader.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+            log.info("Раздел {} восстановлен из снимка", name);
+            return true;
+        } catch (IOException e) {
+            log.warn("Не удалось восстановить раздел {} из снимка: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    public synchronized void register(String name, Writer writer) {
+        if (enabled) {
+            writers.put(name, writer);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        sections.clear();
+        ready = true;
+        log.info("Приложение готово к запросам через {} мс после запуска JVM, снимок: {}",
+                ManagementFactory.getRuntimeMXBean().getUptime(), restored ? "да" : "нет");
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void onClosed() throws InterruptedException {
+        StorageExecutor executor = storageExecutor.getIfAvailable();
+        if (enabled && ready && executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void save() {
+        if (!enabled || !ready || writers.isEmpty()) {
+            return;
+        }
+        String token = UUID.randomUUID().toString();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temporary), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(token);
+                out.writeInt(writers.size());
+                for (Map.Entry<String, Writer> entry : writers.entrySet()) {
+                    ByteArrayOutputStream section = new ByteArrayOutputStream();
+                    entry.getValue().write(new DataOutputStream(section));
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(section.size());
+                    section.writeTo(out);
+                }
+            }
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            jdbcTemplate.update("INSERT INTO snapshot_marker (token) VALUES (?)", token);
+            log.info("Записан снимок {}: {} разделов", path, writers.size());
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(temporary);
+            deleteQuietly(path);
+            log.warn("Не удалось записать снимок {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Не удалось удалить файл {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -13,4 +13,6 @@ public interface FriendStorage {
     List<User> findFriends(Long userId);
 
     List<User> findCommonFriends(Long userId, Long friendId);
+
+    List<Long> findFollowerIds(Long userId, int limit);
 }
@@ -3,15 +3,22 @@ package ru.yandex.practicum.filmorate.storage.user;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserStorage {
 
     Collection<User> findAll();
 
+    List<User> findPage(long afterId, int limit);
+
     User create(User user);
 
     User update(User user);
 
     Optional<User> getUser(Long id);
+
+    List<User> findByIds(List<Long> ids);
+
+    boolean exists(Long id);
 }
@@ -1,17 +1,29 @@
 package ru.yandex.practicum.filmorate.storage.user.impl;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.routing.ReadOnlyQuery;
 import ru.yandex.practicum.filmorate.storage.user.FriendStorage;
 
 import java.util.List;
 
 @Component
+@Profile("!memory")
 @Slf4j
 public class FriendDbStorage implements FriendStorage {
 
+    static final String DELETE_FRIEND_QUERY = "DELETE FROM friends WHERE user_id = ? AND friend_id = ?";
+    static final String FIND_FRIENDS_QUERY = "SELECT u.* FROM users u " +
+            "JOIN friends f ON u.user_id = f.friend_id " +
+            "WHERE f.user_id = ?";
+    static final String FIND_COMMON_FRIENDS_QUERY = "SELECT u.* FROM users u " +
+            "JOIN friends f1 ON u.user_id = f1.friend_id AND f1.user_id = ? " +
+            "JOIN friends f2 ON u.user_id = f2.friend_id AND f2.user_id = ?";
+    static final String FIND_FOLLOWER_IDS_QUERY = "SELECT user_id FROM friends WHERE friend_id = ? LIMIT ?";
+
     private final JdbcTemplate jdbcTemplate;
 
     public FriendDbStorage(JdbcTemplate jdbcTemplate) {
@@ -26,27 +38,23 @@ public class FriendDbStorage implements FriendStorage {
 
     @Override
     public void deleteFriend(Long userId, Long friendId) {
-        String sqlQuery = "DELETE FROM friends " +
-                "WHERE user_id = ? " +
-                "AND friend_id = ?";
-        jdbcTemplate.update(sqlQuery, userId, friendId);
+        jdbcTemplate.update(DELETE_FRIEND_QUERY, userId, friendId);
     }
 
     @Override
+    @ReadOnlyQuery
     public List<User> findFriends(Long userId) {
-        String sqlQuery = "SELECT * FROM users u, friends f " +
-                "WHERE u.user_id = f.friend_id " +
-                "AND f.user_id = ?";
-
-        return jdbcTemplate.query(sqlQuery, UserDbStorage::makeUser, userId);
+        return jdbcTemplate.query(FIND_FRIENDS_QUERY, UserDbStorage::makeUser, userId);
     }
 
     @Override
+    @ReadOnlyQuery
     public List<User> findCommonFriends(Long userId, Long friendId) {
-        String sqlQuery = "SELECT u.* FROM users u " +
-                "JOIN friends f1 ON u.user_id = f1.friend_id AND f1.user_id = ? " +
-                "JOIN friends f2 ON u.user_id = f2.friend_id AND f2.user_id = ?";
+        return jdbcTemplate.query(FIND_COMMON_FRIENDS_QUERY, UserDbStorage::makeUser, userId, friendId);
+    }
 
-        return jdbcTemplate.query(sqlQuery, UserDbStorage::makeUser, userId, friendId);
+    @Override
+    public List<Long> findFollowerIds(Long userId, int limit) {
+        return jdbcTemplate.queryForList(FIND_FOLLOWER_IDS_QUERY, Long.class, userId, limit);
     }
 }
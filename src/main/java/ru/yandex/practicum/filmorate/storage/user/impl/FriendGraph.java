@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.storage.user.impl;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class FriendGraph {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final Map<Long, long[]> adjacency = new ConcurrentHashMap<>();
+
+    public void add(long userId, long friendId) {
+        adjacency.compute(userId, (id, friends) -> {
+            long[] current = friends == null ? EMPTY : friends;
+            int index = Arrays.binarySearch(current, friendId);
+            if (index >= 0) {
+                return current;
+            }
+            int insertAt = -index - 1;
+            long[] updated = new long[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, insertAt);
+            updated[insertAt] = friendId;
+            System.arraycopy(current, insertAt, updated, insertAt + 1, current.length - insertAt);
+            return updated;
+        });
+    }
+
+    public void remove(long userId, long friendId) {
+        adjacency.computeIfPresent(userId, (id, friends) -> {
+            int index = Arrays.binarySearch(friends, friendId);
+            if (index < 0) {
+                return friends;
+            }
+            if (friends.length == 1) {
+                return null;
+            }
+            long[] updated = new long[friends.length - 1];
+            System.arraycopy(friends, 0, updated, 0, index);
+            System.arraycopy(friends, index + 1, updated, index, friends.length - index - 1);
+            return updated;
+        });
+    }
+
+    public void load(long userId, long[] sortedFriends) {
+        adjacency.put(userId, sortedFriends);
+    }
+
+    public void write(DataOutput out) throws IOException {
+        Map<Long, long[]> snapshot = new HashMap<>(adjacency);
+        out.writeInt(snapshot.size());
+        for (Map.Entry<Long, long[]> entry : snapshot.entrySet()) {
+            out.writeLong(entry.getKey());
+            out.writeInt(entry.getValue().length);
+            for (long friendId : entry.getValue()) {
+                out.writeLong(friendId);
+            }
+        }
+    }
+
+    public void read(DataInput in) throws IOException {
+        Map<Long, long[]> loaded = new HashMap<>();
+        for (int users = in.readInt(); users > 0; users--) {
+            long userId = in.readLong();
+            long[] friends = new long[in.readInt()];
+            for (int i = 0; i < friends.length; i++) {
+                friends[i] = in.readLong();
+            }
+            loaded.put(userId, friends);
+        }
+        adjacency.clear();
+        adjacency.putAll(loaded);
+    }
+
+    public void clear() {
+        adjacency.clear();
+    }
+
+    public long[] friendsOf(long userId) {
+        return adjacency.getOrDefault(userId, EMPTY);
+    }
+
+    public long[] commonFriends(long userId, long otherId) {
+        return intersect(friendsOf(userId), friendsOf(otherId));
+    }
+
+    public int size() {
+        return adjacency.size();
+    }
+
+    static long[] intersect(long[] left, long[] right) {
+        long[] result = new long[Math.min(left.length, right.length)];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                result[count++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
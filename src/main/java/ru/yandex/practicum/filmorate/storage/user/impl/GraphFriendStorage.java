@@ -0,0 +1,119 @@
+package ru.yandex.practicum.filmorate.storage.user.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.journal.JournalReplay;
+import ru.yandex.practicum.filmorate.storage.snapshot.StartupSnapshot;
+import ru.yandex.practicum.filmorate.storage.user.FriendStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+@Profile("!memory")
+@Primary
+@ConditionalOnProperty(name = "filmorate.friends.graph.enabled", havingValue = "true")
+public class GraphFriendStorage implements FriendStorage {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FriendDbStorage friendDbStorage;
+    private final UserStorage userStorage;
+    private final ObjectProvider<JournalReplay> journalReplay;
+    private final StartupSnapshot startupSnapshot;
+    private final FriendGraph graph = new FriendGraph();
+
+    public GraphFriendStorage(JdbcTemplate jdbcTemplate, FriendDbStorage friendDbStorage, UserStorage userStorage,
+                              ObjectProvider<JournalReplay> journalReplay, StartupSnapshot startupSnapshot) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.friendDbStorage = friendDbStorage;
+        this.userStorage = userStorage;
+        this.journalReplay = journalReplay;
+        this.startupSnapshot = startupSnapshot;
+    }
+
+    @PostConstruct
+    public void load() {
+        startupSnapshot.register("friends", graph::write);
+        if (startupSnapshot.restore("friends", graph::read)) {
+            return;
+        }
+        JournalReplay replay = journalReplay.getIfAvailable();
+        Optional<Map<Long, long[]>> replayed = replay == null ? Optional.empty() : replay.friends();
+        if (replayed.isPresent()) {
+            graph.clear();
+            replayed.get().forEach(graph::load);
+            log.info("Загружен граф друзей из журнала: {} пользователей", graph.size());
+            return;
+        }
+        String sqlQuery = "SELECT user_id, friend_id FROM friends ORDER BY user_id, friend_id";
+        graph.clear();
+        jdbcTemplate.query(sqlQuery, (ResultSetExtractor<Void>) rs -> {
+            long currentUserId = 0;
+            long[] friends = new long[16];
+            int count = 0;
+            while (rs.next()) {
+                long userId = rs.getLong("user_id");
+                if (userId != currentUserId && count > 0) {
+                    graph.load(currentUserId, Arrays.copyOf(friends, count));
+                    count = 0;
+                }
+                currentUserId = userId;
+                if (count == friends.length) {
+                    friends = Arrays.copyOf(friends, count * 2);
+                }
+                friends[count++] = rs.getLong("friend_id");
+            }
+            if (count > 0) {
+                graph.load(currentUserId, Arrays.copyOf(friends, count));
+            }
+            return null;
+        });
+        log.info("Загружен граф друзей: {} пользователей", graph.size());
+    }
+
+    @Override
+    public void addFriend(Long userId, Long friendId) {
+        friendDbStorage.addFriend(userId, friendId);
+        graph.add(userId, friendId);
+    }
+
+    @Override
+    public void deleteFriend(Long userId, Long friendId) {
+        friendDbStorage.deleteFriend(userId, friendId);
+        graph.remove(userId, friendId);
+    }
+
+    @Override
+    public List<User> findFriends(Long userId) {
+        return hydrate(graph.friendsOf(userId));
+    }
+
+    @Override
+    public List<User> findCommonFriends(Long userId, Long friendId) {
+        return hydrate(graph.commonFriends(userId, friendId));
+    }
+
+    @Override
+    public List<Long> findFollowerIds(Long userId, int limit) {
+        return friendDbStorage.findFollowerIds(userId, limit);
+    }
+
+    private List<User> hydrate(long[] userIds) {
+        return userStorage.findByIds(Arrays.stream(userIds)
+                .boxed()
+                .collect(Collectors.toList()));
+    }
+}
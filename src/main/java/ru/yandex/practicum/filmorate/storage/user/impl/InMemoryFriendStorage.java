@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.storage.user.impl;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.FriendStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Component
+@Profile("memory")
+public class InMemoryFriendStorage implements FriendStorage {
+
+    private final FriendGraph graph = new FriendGraph();
+    private final FriendGraph followers = new FriendGraph();
+    private final UserStorage userStorage;
+
+    public InMemoryFriendStorage(UserStorage userStorage) {
+        this.userStorage = userStorage;
+    }
+
+    @Override
+    public void addFriend(Long userId, Long friendId) {
+        graph.add(userId, friendId);
+        followers.add(friendId, userId);
+    }
+
+    @Override
+    public void deleteFriend(Long userId, Long friendId) {
+        graph.remove(userId, friendId);
+        followers.remove(friendId, userId);
+    }
+
+    @Override
+    public List<User> findFriends(Long userId) {
+        return hydrate(graph.friendsOf(userId));
+    }
+
+    @Override
+    public List<User> findCommonFriends(Long userId, Long friendId) {
+        return hydrate(graph.commonFriends(userId, friendId));
+    }
+
+    @Override
+    public List<Long> findFollowerIds(Long userId, int limit) {
+        return Arrays.stream(followers.friendsOf(userId))
+                .limit(limit)
+                .boxed()
+                .collect(Collectors.toList());
+    }
+
+    private List<User> hydrate(long[] userIds) {
+        return userStorage.findByIds(Arrays.stream(userIds)
+                .boxed()
+                .collect(Collectors.toList()));
+    }
+}
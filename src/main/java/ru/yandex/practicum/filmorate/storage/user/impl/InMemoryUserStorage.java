@@ -1,27 +1,39 @@
 package ru.yandex.practicum.filmorate.storage.user.impl;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 @Component
+@Profile("memory")
 @Slf4j
 public class InMemoryUserStorage implements UserStorage {
 
-    private final Map<Long, User> users = new HashMap<>();
-    private Long id = 1L;
+    private final ConcurrentNavigableMap<Long, User> users = new ConcurrentSkipListMap<>();
+    private final AtomicLong id = new AtomicLong();
 
     @Override
     public Collection<User> findAll() {
         log.info("Текущее количество пользователей: {}", users.size());
-        return users.values();
+        return new ArrayList<>(users.values());
+    }
+
+    @Override
+    public List<User> findPage(long afterId, int limit) {
+        return users.tailMap(afterId, false)
+                .values()
+                .stream()
+                .limit(limit)
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -34,31 +46,33 @@ public class InMemoryUserStorage implements UserStorage {
 
     @Override
     public User update(User user) {
-        if (users.containsKey(user.getId())) {
-            users.put(user.getId(), user);
-            log.info("Обновлен пользователь: {}", user);
-            return user;
-        } else {
+        if (users.replace(user.getId(), user) == null) {
             log.info("Пользователь с id {} не найден", user.getId());
             throw new UserNotFoundException("Пользователя с id " + user.getId() + " не существует.");
         }
+        log.info("Обновлен пользователь: {}", user);
+        return user;
     }
 
     @Override
     public Optional<User> getUser(Long id) {
-        if (id <= 0) {
-            log.info("id {} должен быть больше ноля", id);
-            throw new UserNotFoundException("id должен быть больше ноля");
-        }
-        User user = users.get(id);
-        if (user == null) {
-            log.info("Пользователь с id {} не найден", id);
-            throw new UserNotFoundException("Пользователя с id " + id + " не существует.");
-        }
-        return Optional.of(user);
+        return Optional.ofNullable(users.get(id));
+    }
+
+    @Override
+    public List<User> findByIds(List<Long> ids) {
+        return ids.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean exists(Long id) {
+        return users.containsKey(id);
     }
 
     private Long generateId() {
-        return id++;
+        return id.incrementAndGet();
     }
-}
\ No newline at end of file
+}
@@ -2,40 +2,72 @@ package ru.yandex.practicum.filmorate.storage.user.impl;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.IdRegistry;
+import ru.yandex.practicum.filmorate.storage.routing.ReadOnlyQuery;
+import ru.yandex.practicum.filmorate.storage.snapshot.StartupSnapshot;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
+import javax.annotation.PostConstruct;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Component
+@Profile("!memory")
 @Primary
 @Slf4j
 public class UserDbStorage implements UserStorage {
 
+    private static final int BATCH_SIZE = 1000;
+
+    static final String FIND_PAGE_QUERY = "SELECT * FROM users WHERE user_id > ? ORDER BY user_id LIMIT ?";
+
     private final JdbcTemplate jdbcTemplate;
 
-    public UserDbStorage(JdbcTemplate jdbcTemplate) {
+    private final IdRegistry knownIds = new IdRegistry();
+
+    private final StartupSnapshot startupSnapshot;
+
+    public UserDbStorage(JdbcTemplate jdbcTemplate, StartupSnapshot startupSnapshot) {
         this.jdbcTemplate = jdbcTemplate;
+        this.startupSnapshot = startupSnapshot;
+    }
+
+    @PostConstruct
+    public void loadIds() {
+        startupSnapshot.register("users", knownIds::write);
+        if (startupSnapshot.restore("users", knownIds::read)) {
+            return;
+        }
+        jdbcTemplate.query("SELECT user_id FROM users", (RowCallbackHandler) rs -> knownIds.add(rs.getLong("user_id")));
+        log.info("Загружены id пользователей: {}", knownIds.size());
     }
 
     @Override
+    @ReadOnlyQuery
     public List<User> findAll() {
         String sqlQuery = "SELECT * FROM users";
 
         return jdbcTemplate.query(sqlQuery, UserDbStorage::makeUser);
     }
 
+    @Override
+    @ReadOnlyQuery
+    public List<User> findPage(long afterId, int limit) {
+        return jdbcTemplate.query(FIND_PAGE_QUERY, UserDbStorage::makeUser, afterId, limit);
+    }
+
     @Override
     public User create(User user) {
         final String sqlQuery = "INSERT INTO users(email, login, name, birthday) VALUES (?, ?, ?, ?)";
@@ -49,6 +81,7 @@ public class UserDbStorage implements UserStorage {
             return stmt;
         }, keyHolder);
         user.setId(Objects.requireNonNull(keyHolder.getKey()).longValue());
+        knownIds.add(user.getId());
         log.info("Добавлен пользователь: {}", user);
         return user;
     }
@@ -71,6 +104,7 @@ public class UserDbStorage implements UserStorage {
     }
 
     @Override
+    @ReadOnlyQuery
     public Optional<User> getUser(Long id) {
         String sqlQuery = "SELECT * FROM users WHERE user_id = ?";
         List<User> users = jdbcTemplate.query(sqlQuery, UserDbStorage::makeUser, id);
@@ -83,6 +117,34 @@ public class UserDbStorage implements UserStorage {
         }
     }
 
+    @Override
+    @ReadOnlyQuery
+    public List<User> findByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Long, User> usersById = new HashMap<>();
+        for (int from = 0; from < distinctIds.size(); from += BATCH_SIZE) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + BATCH_SIZE, distinctIds.size()));
+            jdbcTemplate.query(findByIdsQuery(chunk.size()), UserDbStorage::makeUser, chunk.toArray())
+                    .forEach(user -> usersById.put(user.getId(), user));
+        }
+        return ids.stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean exists(Long id) {
+        return knownIds.contains(id);
+    }
+
+    static String findByIdsQuery(int size) {
+        return "SELECT * FROM users WHERE user_id IN (" + String.join(",", Collections.nCopies(size, "?")) + ")";
+    }
+
     protected static User makeUser(ResultSet rs, int rowNum) throws SQLException {
         return User.builder()
                 .id(rs.getLong("user_id"))
@@ -0,0 +1,5 @@
+CREATE INDEX IF NOT EXISTS friends_friend_id_user_id_idx ON friends (friend_id, user_id);
+
+CREATE INDEX IF NOT EXISTS likes_user_id_film_id_idx ON likes (user_id, film_id);
+
+CREATE INDEX IF NOT EXISTS movie_genres_genre_id_film_id_idx ON movie_genres (genre_id, film_id);
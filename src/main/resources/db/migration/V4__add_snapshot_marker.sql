@@ -0,0 +1,3 @@
+CREATE TABLE IF NOT EXISTS snapshot_marker (
+  token varchar(64) PRIMARY KEY
+);
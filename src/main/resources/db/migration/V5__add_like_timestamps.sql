@@ -0,0 +1,5 @@
+ALTER TABLE likes ADD COLUMN IF NOT EXISTS liked_at timestamp;
+
+ALTER TABLE likes ALTER COLUMN liked_at SET DEFAULT CURRENT_TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS likes_liked_at_idx ON likes (liked_at);
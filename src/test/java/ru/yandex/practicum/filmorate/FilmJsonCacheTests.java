@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.film.FilmJsonCache;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("memory")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class FilmJsonCacheTests {
+
+    private final FilmService filmService;
+    private final FilmJsonCache filmJsonCache;
+    private final UserStorage userStorage;
+
+    @Test
+    public void testFilmJsonIsReusedUntilUpdate() {
+        Film film = filmService.create(newFilm("Кэш"));
+
+        byte[] json = filmJsonCache.getFilm(film.getId(), () -> filmService.getFilm(film.getId()));
+        assertSame(json, filmJsonCache.getFilm(film.getId(), () -> fail("Фильм должен браться из кэша")));
+        assertTrue(new String(json, StandardCharsets.UTF_8).contains("\"name\":\"Кэш\""));
+
+        filmService.update(film.toBuilder().name("Обновлённый").build());
+
+        byte[] updated = filmJsonCache.getFilm(film.getId(), () -> filmService.getFilm(film.getId()));
+        assertTrue(new String(updated, StandardCharsets.UTF_8).contains("\"name\":\"Обновлённый\""));
+    }
+
+    @Test
+    public void testPopularJsonFollowsLikes() {
+        Film first = filmService.create(newFilm("Первый"));
+        Film second = filmService.create(newFilm("Второй"));
+        User user = userStorage.create(User.builder().email("mail@mail.ru").login("login").name("name")
+                .birthday(LocalDate.of(1990, 1, 1)).build());
+
+        byte[] json = filmJsonCache.getPopularFilms(1, null, 1901, () -> filmService.getPopularFilms(1, null, 1901));
+        assertSame(json, filmJsonCache.getPopularFilms(1, null, 1901, () -> fail("Список должен браться из кэша")));
+
+        filmService.addLike(second.getId(), user.getId());
+
+        byte[] liked = filmJsonCache.getPopularFilms(1, null, 1901, () -> filmService.getPopularFilms(1, null, 1901));
+        assertTrue(new String(liked, StandardCharsets.UTF_8).contains("\"id\":" + second.getId() + ","));
+    }
+
+    private static Film newFilm(String name) {
+        return Film.builder().name(name).description("Описание").releaseDate(LocalDate.of(1901, 1, 1)).duration(100)
+                .mpa(Mpa.builder().id(1).build()).genres(List.of()).build();
+    }
+}
@@ -6,15 +6,29 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
+import ru.yandex.practicum.filmorate.storage.film.impl.FilmCache;
 import ru.yandex.practicum.filmorate.storage.film.impl.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.impl.FilmTrends;
+import ru.yandex.practicum.filmorate.storage.film.impl.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.impl.LikeDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.impl.LikeMatrix;
 import ru.yandex.practicum.filmorate.storage.user.impl.UserDbStorage;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -26,6 +40,9 @@ class FilmorateApplicationTests {
 
     private final UserDbStorage userStorage;
     private final FilmDbStorage filmStorage;
+    private final LikeDbStorage likeStorage;
+    private final LikeMatrix likeMatrix;
+    private final JdbcTemplate jdbcTemplate;
 
     private static final String CREATE_USERS_TABLE =
             "CREATE TABLE IF NOT EXISTS users (" +
@@ -176,4 +193,203 @@ class FilmorateApplicationTests {
         assertNotNull(films);
         assertEquals(3, films.size());
     }
+
+    @Test
+    @Order(9)
+    public void testPopularFilms() {
+        Film newFilm = Film.builder().name("Титаник").description("Большой корабль").releaseDate(LocalDate.of(1997, 12, 19)).duration(194).mpa(Mpa.builder().id(3).build()).build();
+        Film savedFilm = filmStorage.create(newFilm);
+
+        likeStorage.addLike(savedFilm.getId(), 1L);
+        likeStorage.addLike(savedFilm.getId(), 2L);
+        Collection<Film> popular = filmStorage.getPopularFilms(1);
+
+        assertEquals(1, popular.size());
+        assertEquals(savedFilm.getId(), popular.iterator().next().getId());
+
+        likeStorage.deleteLike(savedFilm.getId(), 1L);
+        likeStorage.deleteLike(savedFilm.getId(), 2L);
+        assertTrue(filmStorage.getPopularFilms(10).stream().anyMatch(film -> film.getId().equals(savedFilm.getId())));
+    }
+
+    @Test
+    @Order(10)
+    public void testFindUserPage() {
+        List<User> firstPage = userStorage.findPage(0, 2);
+        List<User> secondPage = userStorage.findPage(firstPage.get(1).getId(), 2);
+
+        assertEquals(2, firstPage.size());
+        assertEquals(1L, firstPage.get(0).getId());
+        assertEquals(1, secondPage.size());
+        assertEquals(3L, secondPage.get(0).getId());
+    }
+
+    @Test
+    @Order(11)
+    public void testCreateFilmsBatch() {
+        List<Film> newFilms = List.of(
+                Film.builder().name("Матрица").description("Красная таблетка").releaseDate(LocalDate.of(1999, 3, 31)).duration(136).mpa(Mpa.builder().id(4).build()).genres(List.of(new Genre(4, null), new Genre(6, null))).build(),
+                Film.builder().name("Шрек").description("Болото").releaseDate(LocalDate.of(2001, 4, 22)).duration(90).mpa(Mpa.builder().id(1).build()).genres(List.of(new Genre(3, null))).build());
+
+        List<Film> savedFilms = filmStorage.createAll(newFilms);
+
+        assertEquals(2, savedFilms.size());
+        assertEquals(savedFilms.get(0).getId() + 1, savedFilms.get(1).getId());
+        Film matrix = filmStorage.getFilm(savedFilms.get(0).getId()).orElseThrow(IllegalArgumentException::new);
+        assertEquals("Матрица", matrix.getName());
+        assertEquals(List.of(4, 6), matrix.getGenres().stream().map(Genre::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    @Order(12)
+    public void testSearchFilms() {
+        Film savedFilm = filmStorage.create(Film.builder().name("Звёздные войны").description("Далёкая галактика").releaseDate(LocalDate.of(1977, 5, 25)).duration(121).mpa(Mpa.builder().id(2).build()).build());
+
+        assertEquals(List.of(savedFilm.getId()), filmStorage.search("звезд", 10).stream().map(Film::getId).collect(Collectors.toList()));
+        assertEquals(List.of(savedFilm.getId()), filmStorage.search("войны гал", 10).stream().map(Film::getId).collect(Collectors.toList()));
+        assertTrue(filmStorage.search("войны корабль", 10).isEmpty());
+
+        savedFilm.setName("Новая надежда");
+        filmStorage.update(savedFilm);
+
+        assertTrue(filmStorage.search("звезд", 10).isEmpty());
+        assertEquals(List.of(savedFilm.getId()), filmStorage.search("надеж", 10).stream().map(Film::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    @Order(13)
+    public void testPopularFilmsByGenreAndYear() {
+        Film documentary = filmStorage.create(Film.builder().name("Земля").description("Хроника").releaseDate(LocalDate.of(1960, 1, 1)).duration(60).mpa(Mpa.builder().id(1).build()).genres(List.of(new Genre(5, null))).build());
+        Film drama = filmStorage.create(Film.builder().name("Небо").description("Хроника").releaseDate(LocalDate.of(1961, 1, 1)).duration(60).mpa(Mpa.builder().id(1).build()).genres(List.of(new Genre(5, null), new Genre(2, null))).build());
+        likeStorage.addLike(drama.getId(), 1L);
+
+        assertEquals(List.of(drama.getId(), documentary.getId()), filmStorage.getPopularFilms(10, 5, null).stream().map(Film::getId).collect(Collectors.toList()));
+        assertEquals(List.of(documentary.getId()), filmStorage.getPopularFilms(10, null, 1960).stream().map(Film::getId).collect(Collectors.toList()));
+        assertEquals(List.of(drama.getId()), filmStorage.getPopularFilms(10, 2, 1961).stream().map(Film::getId).collect(Collectors.toList()));
+        assertTrue(filmStorage.getPopularFilms(10, 2, 1960).isEmpty());
+
+        documentary.setGenres(List.of(new Genre(2, null)));
+        filmStorage.update(documentary);
+
+        assertEquals(List.of(drama.getId()), filmStorage.getPopularFilms(10, 5, null).stream().map(Film::getId).collect(Collectors.toList()));
+        assertEquals(List.of(documentary.getId()), filmStorage.getPopularFilms(10, 2, 1960).stream().map(Film::getId).collect(Collectors.toList()));
+        likeStorage.deleteLike(drama.getId(), 1L);
+    }
+
+    @Test
+    @Order(14)
+    public void testRecommendations() {
+        List<Film> newFilms = filmStorage.createAll(List.of(
+                Film.builder().name("Первый").description("Описание").releaseDate(LocalDate.of(2010, 1, 1)).duration(90).mpa(Mpa.builder().id(1).build()).build(),
+                Film.builder().name("Второй").description("Описание").releaseDate(LocalDate.of(2011, 1, 1)).duration(90).mpa(Mpa.builder().id(1).build()).build(),
+                Film.builder().name("Третий").description("Описание").releaseDate(LocalDate.of(2012, 1, 1)).duration(90).mpa(Mpa.builder().id(1).build()).build()));
+        likeStorage.addLike(newFilms.get(0).getId(), 1L);
+        likeStorage.addLike(newFilms.get(1).getId(), 1L);
+        likeStorage.addLike(newFilms.get(0).getId(), 2L);
+        likeStorage.addLike(newFilms.get(1).getId(), 2L);
+        likeStorage.addLike(newFilms.get(2).getId(), 2L);
+
+        assertEquals(List.of(newFilms.get(2).getId()), likeStorage.getRecommendedFilmIds(1L, 10));
+        assertEquals(List.of(), likeStorage.getRecommendedFilmIds(2L, 10));
+
+        likeStorage.deleteLike(newFilms.get(2).getId(), 2L);
+        assertEquals(List.of(), likeStorage.getRecommendedFilmIds(1L, 10));
+    }
+
+    @Test
+    @Order(15)
+    public void testTrendingFilms() {
+        List<Film> newFilms = filmStorage.createAll(List.of(
+                Film.builder().name("Свежий").description("Описание").releaseDate(LocalDate.of(2020, 1, 1)).duration(90).mpa(Mpa.builder().id(1).build()).build(),
+                Film.builder().name("Вчерашний").description("Описание").releaseDate(LocalDate.of(2021, 1, 1)).duration(90).mpa(Mpa.builder().id(1).build()).build()));
+        List<Long> ids = newFilms.stream().map(Film::getId).collect(Collectors.toList());
+        likeStorage.addLike(ids.get(0), 1L);
+        likeStorage.addLikes(List.of(new Like(ids.get(0), 2L), new Like(ids.get(1), 1L)));
+
+        List<Long> trending = likeStorage.getTrendingFilmIds(Duration.ofHours(1), 100);
+        assertEquals(ids, trending.stream().filter(ids::contains).collect(Collectors.toList()));
+
+        likeStorage.deleteLike(ids.get(0), 1L);
+        likeStorage.deleteLikes(List.of(new Like(ids.get(0), 2L)));
+        trending = likeStorage.getTrendingFilmIds(Duration.ofHours(1), 100);
+        assertEquals(List.of(ids.get(1)), trending.stream().filter(ids::contains).collect(Collectors.toList()));
+
+        FilmTrends hourly = new FilmTrends(Duration.ofHours(2));
+        long now = Duration.ofDays(20000).plusMinutes(30).toMillis();
+        hourly.add(1L, now - Duration.ofHours(1).toMillis());
+        hourly.add(2L, now);
+        hourly.add(2L, now);
+        assertEquals(List.of(2L, 1L), hourly.top(Duration.ofHours(2), now, 10));
+        assertEquals(List.of(2L), hourly.top(Duration.ofHours(1), now, 10));
+        assertThrows(ValidationException.class, () -> hourly.top(Duration.ofMinutes(1), now, 10));
+        assertThrows(ValidationException.class, () -> hourly.top(Duration.ofMinutes(90), now, 10));
+        assertThrows(ValidationException.class, () -> hourly.top(Duration.ofHours(3), now, 10));
+        assertEquals(List.of(), hourly.top(Duration.ofHours(2), now + Duration.ofHours(4).toMillis(), 10));
+        likeStorage.deleteLike(ids.get(1), 1L);
+    }
+
+    @Test
+    @Order(16)
+    public void testFindByIdsKeepsRequestedOrder() {
+        List<Film> newFilms = filmStorage.createAll(List.of(
+                Film.builder().name("Левый").description("Описание").releaseDate(LocalDate.of(2010, 1, 1)).duration(90).mpa(Mpa.builder().id(1).build()).genres(List.of(new Genre(1, null))).build(),
+                Film.builder().name("Правый").description("Описание").releaseDate(LocalDate.of(2011, 1, 1)).duration(90).mpa(Mpa.builder().id(1).build()).build()));
+        Long left = newFilms.get(0).getId();
+        Long right = newFilms.get(1).getId();
+
+        List<Film> films = filmStorage.findByIds(List.of(right, 9999L, left));
+        assertEquals(List.of(right, left), films.stream().map(Film::getId).collect(Collectors.toList()));
+        assertEquals(1, films.get(1).getGenres().size());
+        assertEquals(List.of(2L, 1L), userStorage.findByIds(List.of(2L, 9999L, 1L)).stream().map(User::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    @Order(17)
+    public void testFilmCacheDropsStaleLoads() {
+        ChangeVersions versions = new ChangeVersions();
+        FilmCache cache = new FilmCache(10, versions);
+        Film film = Film.builder().id(1L).name("Кэш").description("Описание").releaseDate(LocalDate.of(2010, 1, 1)).duration(90).mpa(Mpa.builder().id(1).build()).build();
+
+        long generation = cache.generation();
+        cache.invalidate(1L);
+        cache.put(film, generation);
+        assertTrue(cache.get(1L).isEmpty());
+
+        cache.put(film, cache.generation());
+        assertTrue(cache.get(1L).isPresent());
+
+        versions.bump(ChangeVersions.Kind.REFERENCE);
+        assertTrue(cache.get(1L).isEmpty());
+    }
+
+    @Test
+    @Order(18)
+    public void testRejectedLikeBatchKeepsIndexesInSync() {
+        Film film = filmStorage.create(Film.builder().name("Пакет").description("Описание").releaseDate(LocalDate.of(2010, 1, 1)).duration(90).mpa(Mpa.builder().id(1).build()).build());
+
+        List<Like> applied = likeStorage.addLikes(List.of(new Like(film.getId(), 1L), new Like(9999L, 1L), new Like(film.getId(), 2L)));
+        assertEquals(List.of(new Like(film.getId(), 1L), new Like(film.getId(), 2L)), applied);
+        assertTrue(Arrays.binarySearch(likeMatrix.filmsOf(1L), film.getId()) >= 0);
+        assertTrue(Arrays.binarySearch(likeMatrix.filmsOf(2L), film.getId()) >= 0);
+
+        likeStorage.deleteLikes(List.of(new Like(film.getId(), 1L), new Like(film.getId(), 2L)));
+        assertTrue(Arrays.binarySearch(likeMatrix.filmsOf(2L), film.getId()) < 0);
+    }
+
+    @Test
+    @Order(19)
+    public void testGenreMissRefreshesOnlyAfterReferenceChange() {
+        ChangeVersions versions = new ChangeVersions();
+        GenreDbStorage genres = new GenreDbStorage(jdbcTemplate, versions, Duration.ofHours(1));
+        genres.refresh();
+        jdbcTemplate.update("INSERT INTO genres (genre_id, name) VALUES (?, ?)", 100, "Нуар");
+        try {
+            assertThrows(FilmNotFoundException.class, () -> genres.getGenre(100));
+
+            versions.bump(ChangeVersions.Kind.REFERENCE);
+            assertEquals("Нуар", genres.getGenre(100).getName());
+        } finally {
+            jdbcTemplate.update("DELETE FROM genres WHERE genre_id = ?", 100);
+        }
+    }
 }
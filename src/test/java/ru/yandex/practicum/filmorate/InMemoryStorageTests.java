@@ -0,0 +1,203 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.film.impl.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.storage.film.impl.FilmTrends;
+import ru.yandex.practicum.filmorate.storage.user.FriendStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("memory")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class InMemoryStorageTests {
+
+    private final UserStorage userStorage;
+    private final FilmStorage filmStorage;
+    private final LikeStorage likeStorage;
+    private final FriendStorage friendStorage;
+
+    @Test
+    public void testConcurrentCreateGeneratesUniqueIds() throws InterruptedException {
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 2000; i++) {
+            executor.execute(() -> ids.add(userStorage.create(newUser()).getId()));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(2000, ids.size());
+        assertTrue(ids.stream().allMatch(userStorage::exists));
+    }
+
+    @Test
+    public void testLeaderboardTopIsConsistentDuringLikes() throws Exception {
+        FilmLeaderboard leaderboard = new FilmLeaderboard();
+        for (long filmId = 1; filmId <= 20; filmId++) {
+            leaderboard.register(filmId, 2000, List.of(1));
+        }
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        leaderboard.write(new DataOutputStream(snapshot));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        Future<?> writer = executor.submit(() -> {
+            for (int i = 0; i < 200_000; i++) {
+                long filmId = ThreadLocalRandom.current().nextLong(1, 21);
+                if (ThreadLocalRandom.current().nextBoolean()) {
+                    leaderboard.increment(filmId);
+                } else {
+                    leaderboard.decrement(filmId);
+                }
+            }
+        });
+        Future<?> restorer = executor.submit(() -> {
+            while (!writer.isDone()) {
+                leaderboard.read(new DataInputStream(new ByteArrayInputStream(snapshot.toByteArray())));
+            }
+            return null;
+        });
+        List<Future<?>> readers = List.of(
+                executor.submit(() -> readTopUntilDone(writer, () -> leaderboard.top(20))),
+                executor.submit(() -> readTopUntilDone(writer, () -> leaderboard.top(20, 1, 2000))));
+        for (Future<?> reader : readers) {
+            reader.get(30, TimeUnit.SECONDS);
+        }
+        restorer.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+
+    @Test
+    public void testPopularFilmsFollowConcurrentLikes() throws InterruptedException {
+        Film first = filmStorage.create(newFilm("Первый"));
+        Film second = filmStorage.create(newFilm("Второй"));
+        List<User> users = List.of(userStorage.create(newUser()), userStorage.create(newUser()), userStorage.create(newUser()));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 100; i++) {
+            for (User user : users) {
+                executor.execute(() -> likeStorage.addLike(second.getId(), user.getId()));
+            }
+            executor.execute(() -> likeStorage.addLike(first.getId(), users.get(0).getId()));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        List<Long> popular = filmStorage.getPopularFilms(2).stream().map(Film::getId).collect(Collectors.toList());
+        assertEquals(List.of(second.getId(), first.getId()), popular);
+
+        users.forEach(user -> likeStorage.deleteLike(second.getId(), user.getId()));
+        popular = filmStorage.getPopularFilms(1).stream().map(Film::getId).collect(Collectors.toList());
+        assertEquals(List.of(first.getId()), popular);
+    }
+
+    @Test
+    public void testTrendsRolloverKeepsHoursApart() throws Exception {
+        FilmTrends trends = new FilmTrends(Duration.ofHours(1));
+        long hour = Duration.ofHours(1).toMillis();
+        long start = Duration.ofDays(20000).toMillis();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 1; round <= 200; round++) {
+                long old = start + (2L * round - 2) * hour;
+                long fresh = start + 2L * round * hour;
+                CyclicBarrier barrier = new CyclicBarrier(4);
+                List<Future<?>> changes = new ArrayList<>();
+                for (int writer = 0; writer < 3; writer++) {
+                    changes.add(executor.submit(() -> {
+                        barrier.await();
+                        for (int i = 0; i < 500; i++) {
+                            trends.add(1L, old);
+                        }
+                        return null;
+                    }));
+                }
+                changes.add(executor.submit(() -> {
+                    barrier.await();
+                    trends.add(2L, fresh);
+                    return null;
+                }));
+                for (Future<?> change : changes) {
+                    change.get(10, TimeUnit.SECONDS);
+                }
+                assertEquals(List.of(2L), trends.top(Duration.ofHours(1), fresh, 10));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFilmGenresAndMpaAreResolved() {
+        Film film = filmStorage.create(newFilm("Жанры"));
+
+        Film saved = filmStorage.getFilm(film.getId()).orElseThrow(IllegalArgumentException::new);
+
+        assertEquals("PG-13", saved.getMpa().getName());
+        assertEquals(List.of(1, 2), saved.getGenres().stream().map(Genre::getId).collect(Collectors.toList()));
+        assertNotNull(saved.getGenres().get(0).getName());
+    }
+
+    @Test
+    public void testCommonFriends() {
+        User user = userStorage.create(newUser());
+        User other = userStorage.create(newUser());
+        User common = userStorage.create(newUser());
+        friendStorage.addFriend(user.getId(), common.getId());
+        friendStorage.addFriend(other.getId(), common.getId());
+        friendStorage.addFriend(user.getId(), other.getId());
+
+        List<User> commonFriends = friendStorage.findCommonFriends(user.getId(), other.getId());
+
+        assertEquals(List.of(common.getId()), commonFriends.stream().map(User::getId).collect(Collectors.toList()));
+        assertEquals(2, friendStorage.findFriends(user.getId()).size());
+    }
+
+    private static User newUser() {
+        return User.builder().email("mail@mail.ru").login("login").name("name").birthday(LocalDate.of(1990, 1, 1)).build();
+    }
+
+    private static Film newFilm(String name) {
+        return Film.builder().name(name).description("Описание").releaseDate(LocalDate.of(2000, 1, 1)).duration(100)
+                .mpa(Mpa.builder().id(3).build()).genres(List.of(new Genre(2, null), new Genre(1, null), new Genre(2, null))).build();
+    }
+
+    private static void readTopUntilDone(Future<?> writer, Supplier<List<Long>> top) {
+        while (!writer.isDone()) {
+            List<Long> filmIds = top.get();
+            assertEquals(20, filmIds.size(), filmIds.toString());
+            assertEquals(20, new HashSet<>(filmIds).size(), filmIds.toString());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.user.UserService;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("memory")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class MultiGetTests {
+
+    private final MockMvc mockMvc;
+    private final UserService userService;
+
+    @Test
+    public void testIdsAndLimitMapToSeparateHandlers() throws Exception {
+        User first = userService.create(newUser("first"));
+        User second = userService.create(newUser("second"));
+        String ids = first.getId() + "," + second.getId() + "," + first.getId();
+
+        mockMvc.perform(asyncDispatch(mockMvc.perform(get("/users").param("ids", ids)).andReturn()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+        mockMvc.perform(asyncDispatch(mockMvc.perform(get("/users").param("limit", "1")).andReturn()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1));
+        mockMvc.perform(get("/users").param("ids", ids).param("limit", "5"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/films").param("ids", "1,2").param("limit", "5"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testTooManyIdsAreRejected() throws Exception {
+        String ids = LongStream.rangeClosed(1, 501)
+                .mapToObj(Long::toString)
+                .collect(Collectors.joining(","));
+
+        mockMvc.perform(asyncDispatch(mockMvc.perform(get("/films").param("ids", ids)).andReturn()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(asyncDispatch(mockMvc.perform(get("/users").param("ids", String.join(",",
+                        Collections.nCopies(3, "1")))).andReturn()))
+                .andExpect(status().isOk());
+    }
+
+    private static User newUser(String login) {
+        return User.builder()
+                .email(login + "@mail.ru")
+                .login(login)
+                .name(login)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+}
@@ -0,0 +1,102 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.storage.journal.JournalRecord;
+import ru.yandex.practicum.filmorate.storage.journal.MutationJournal;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.yandex.practicum.filmorate.storage.journal.JournalRecord.Type.*;
+
+class MutationJournalTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testSegmentsRollAndCompactToLiveRecords() throws Exception {
+        MutationJournal journal = new MutationJournal(directory, 21 * 10, 3);
+        for (long userId = 1; userId <= 20; userId++) {
+            journal.append(new JournalRecord(LIKE_ADDED, 1, userId));
+        }
+        for (long userId = 1; userId <= 15; userId++) {
+            journal.append(new JournalRecord(LIKE_REMOVED, 1, userId));
+        }
+        journal.append(new JournalRecord(FRIEND_ADDED, 7, 8));
+        journal.compact();
+        assertTrue(journal.segmentCount() < 4);
+        journal.close();
+
+        MutationJournal reopened = new MutationJournal(directory, 21 * 10, 3);
+        Set<Long> likedBy = new HashSet<>();
+        reopened.replay(record -> {
+            if (record.getType() == LIKE_ADDED) {
+                likedBy.add(record.getSecond());
+            } else if (record.getType() == LIKE_REMOVED) {
+                likedBy.remove(record.getSecond());
+            }
+        });
+        assertEquals(Set.of(16L, 17L, 18L, 19L, 20L), likedBy);
+        assertTrue(replay(reopened).contains(new JournalRecord(FRIEND_ADDED, 7, 8)));
+        reopened.close();
+    }
+
+    @Test
+    public void testTornTailIsTruncatedOnOpen() throws Exception {
+        MutationJournal journal = new MutationJournal(directory, 1 << 20, 4);
+        journal.append(List.of(new JournalRecord(LIKE_ADDED, 1, 2), new JournalRecord(LIKE_ADDED, 3, 4)));
+        journal.close();
+        try (FileChannel channel = FileChannel.open(lastSegment(), StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+
+        MutationJournal reopened = new MutationJournal(directory, 1 << 20, 4);
+        assertEquals(List.of(new JournalRecord(LIKE_ADDED, 1, 2)), replay(reopened));
+        reopened.append(new JournalRecord(LIKE_ADDED, 5, 6));
+        assertEquals(2, replay(reopened).size());
+        reopened.close();
+    }
+
+    @Test
+    public void testConcurrentAppendsAreAllDurable() throws Exception {
+        MutationJournal journal = new MutationJournal(directory, 21 * 500, 4);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 2000; i++) {
+            long userId = i;
+            executor.execute(() -> journal.append(new JournalRecord(FRIEND_ADDED, userId, userId + 1)));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        journal.close();
+
+        MutationJournal reopened = new MutationJournal(directory, 21 * 500, 4);
+        assertEquals(2000, replay(reopened).stream().map(JournalRecord::getFirst).distinct().count());
+        reopened.close();
+    }
+
+    private static List<JournalRecord> replay(MutationJournal journal) {
+        List<JournalRecord> records = new ArrayList<>();
+        journal.replay(records::add);
+        return records;
+    }
+
+    private Path lastSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().reduce((first, second) -> second).orElseThrow();
+        }
+    }
+}
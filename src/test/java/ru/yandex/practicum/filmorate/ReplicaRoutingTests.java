@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.PageCursor;
+import ru.yandex.practicum.filmorate.service.film.FilmJsonCache;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
+import ru.yandex.practicum.filmorate.storage.routing.ReadYourWritesFilter;
+import ru.yandex.practicum.filmorate.storage.routing.ReplicationStandIn;
+import ru.yandex.practicum.filmorate.storage.routing.RoutingContext;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import javax.servlet.http.Cookie;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "filmorate.datasource.replica.enabled=true",
+        "filmorate.datasource.replica.url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "filmorate.datasource.replica.stand-in.enabled=true",
+        "filmorate.datasource.replica.stand-in.lag-ms=3600000"
+})
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ReplicaRoutingTests {
+
+    private final UserStorage userStorage;
+    private final ReplicationStandIn replicationStandIn;
+    private final MockMvc mockMvc;
+    private final FilmService filmService;
+    private final FilmJsonCache filmJsonCache;
+
+    @Test
+    public void testReadOnlyQueriesGoToReplica() throws Exception {
+        User user = userStorage.create(newUser());
+        assertTrue(userStorage.getUser(user.getId()).isEmpty());
+
+        boolean previous = RoutingContext.setSticky(true);
+        try {
+            assertTrue(userStorage.getUser(user.getId()).isPresent());
+        } finally {
+            RoutingContext.setSticky(previous);
+        }
+
+        replicationStandIn.sync();
+        assertEquals(user, userStorage.getUser(user.getId()).orElseThrow());
+    }
+
+    @Test
+    public void testJsonCacheLoadsFromPrimary() {
+        Film film = filmService.create(Film.builder().name("Первичный").description("Описание")
+                .releaseDate(LocalDate.of(2000, 1, 1)).duration(90).mpa(Mpa.builder().id(1).build()).build());
+
+        byte[] json = filmJsonCache.getFilm(film.getId(), () -> filmService.getFilm(film.getId()));
+        assertTrue(new String(json, StandardCharsets.UTF_8).contains("\"name\":\"Первичный\""));
+    }
+
+    @Test
+    public void testSessionReadsItsOwnWrites() throws Exception {
+        MvcResult created = mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"sticky@mail.ru\",\"login\":\"sticky\",\"name\":\"Sticky\"," +
+                                "\"birthday\":\"1990-01-01\"}"))
+                .andReturn();
+        MvcResult dispatched = mockMvc.perform(asyncDispatch(created))
+                .andExpect(status().isOk())
+                .andReturn();
+        Cookie cookie = created.getResponse().getCookie(ReadYourWritesFilter.COOKIE_NAME);
+        assertNotNull(cookie);
+        String id = dispatched.getResponse().getContentAsString().replaceAll(".*\"id\":(\\d+).*", "$1");
+
+        mockMvc.perform(asyncDispatch(mockMvc.perform(get("/users/" + id).cookie(cookie)).andReturn()))
+                .andExpect(status().isOk());
+        mockMvc.perform(asyncDispatch(mockMvc.perform(get("/users/" + id)).andReturn()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testEtagGuardedReadsComeFromPrimary() throws Exception {
+        Film film = filmService.create(Film.builder().name("Свежая версия").description("Описание")
+                .releaseDate(LocalDate.of(2000, 1, 1)).duration(90).mpa(Mpa.builder().id(1).build()).build());
+
+        MvcResult page = mockMvc.perform(asyncDispatch(mockMvc.perform(get("/films")
+                        .param("after", PageCursor.encode(film.getId() - 1)).param("limit", "1")).andReturn()))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertTrue(page.getResponse().getContentAsString(StandardCharsets.UTF_8).contains("Свежая версия"));
+        assertFalse(RoutingContext.isSticky());
+    }
+
+    private static User newUser() {
+        return User.builder()
+                .email("replica@mail.ru")
+                .login("replica")
+                .name("Replica")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+}
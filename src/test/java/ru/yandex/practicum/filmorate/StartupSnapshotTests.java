@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.service.StorageExecutor;
+import ru.yandex.practicum.filmorate.storage.IdRegistry;
+import ru.yandex.practicum.filmorate.storage.film.impl.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.storage.film.impl.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.impl.LikeMatrix;
+import ru.yandex.practicum.filmorate.storage.snapshot.StartupSnapshot;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class StartupSnapshotTests {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testStructuresAreRestoredFromSnapshot() {
+        IdRegistry ids = new IdRegistry();
+        FilmLeaderboard leaderboard = new FilmLeaderboard();
+        FilmSearchIndex searchIndex = new FilmSearchIndex();
+        LikeMatrix likeMatrix = new LikeMatrix();
+        for (long filmId = 1; filmId <= 5; filmId++) {
+            ids.add(filmId);
+            leaderboard.load(filmId, filmId * 10, 2000 + (int) filmId % 2, List.of((int) filmId % 3 + 1));
+            searchIndex.add(Film.builder().id(filmId).name("Фильм " + filmId).description("про кино").build());
+        }
+        likeMatrix.load(List.of(new Like(1, 1), new Like(2, 1), new Like(2, 2), new Like(3, 2)));
+
+        StartupSnapshot snapshot = newSnapshot();
+        snapshot.register("films", out -> {
+            ids.write(out);
+            leaderboard.write(out);
+            searchIndex.write(out);
+            likeMatrix.write(out);
+        });
+        snapshot.onReady();
+        snapshot.save();
+
+        IdRegistry restoredIds = new IdRegistry();
+        FilmLeaderboard restoredLeaderboard = new FilmLeaderboard();
+        FilmSearchIndex restoredIndex = new FilmSearchIndex();
+        LikeMatrix restoredMatrix = new LikeMatrix();
+        StartupSnapshot restarted = newSnapshot();
+        restarted.load();
+        assertTrue(restarted.restore("films", in -> {
+            restoredIds.read(in);
+            restoredLeaderboard.read(in);
+            restoredIndex.read(in);
+            restoredMatrix.read(in);
+        }));
+
+        assertEquals(5, restoredIds.size());
+        assertEquals(leaderboard.top(5), restoredLeaderboard.top(5));
+        assertEquals(leaderboard.top(5, 2, 2001), restoredLeaderboard.top(5, 2, 2001));
+        assertEquals(searchIndex.search("фильм 3", 10), restoredIndex.search("фильм 3", 10));
+        assertEquals(searchIndex.search("кин", 10), restoredIndex.search("кин", 10));
+        assertEquals(likeMatrix.recommend(1, 10), restoredMatrix.recommend(1, 10));
+        assertArrayEquals(likeMatrix.filmsOf(2), restoredMatrix.filmsOf(2));
+    }
+
+    @Test
+    public void testSnapshotIsUsedOnlyOnceAndOnlyWithMarker() {
+        StartupSnapshot snapshot = newSnapshot();
+        snapshot.register("users", out -> out.writeInt(42));
+        snapshot.onReady();
+        snapshot.save();
+        jdbcTemplate.update("DELETE FROM snapshot_marker");
+
+        StartupSnapshot stale = newSnapshot();
+        stale.load();
+        assertFalse(stale.restore("users", in -> fail("Устаревший снимок не должен читаться")));
+
+        snapshot.save();
+        StartupSnapshot first = newSnapshot();
+        first.load();
+        assertTrue(first.restore("users", in -> assertEquals(42, in.readInt())));
+        StartupSnapshot second = newSnapshot();
+        second.load();
+        assertFalse(second.restore("users", in -> fail("Снимок должен использоваться один раз")));
+    }
+
+    private StartupSnapshot newSnapshot() {
+        ObjectProvider<StorageExecutor> noExecutor = new StaticListableBeanFactory().getBeanProvider(StorageExecutor.class);
+        return new StartupSnapshot(true, directory.resolve("filmorate.snapshot").toString(), jdbcTemplate, noExecutor);
+    }
+}
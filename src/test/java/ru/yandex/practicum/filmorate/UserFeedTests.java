@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.yandex.practicum.filmorate.model.FeedEvent;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
+import ru.yandex.practicum.filmorate.service.user.UserService;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"filmorate.feed.capacity=3", "filmorate.feed.fan-out-limit=1"})
+@ActiveProfiles("memory")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class UserFeedTests {
+
+    private final UserService userService;
+    private final FilmService filmService;
+
+    @Test
+    public void testFeedShowsFriendActivityNewestFirst() {
+        User reader = userService.create(newUser("reader"));
+        User author = userService.create(newUser("author"));
+        Film first = filmService.create(newFilm("Первый"));
+        Film second = filmService.create(newFilm("Второй"));
+        userService.addFriend(reader.getId(), author.getId());
+
+        filmService.addLike(first.getId(), author.getId());
+        filmService.addLike(second.getId(), author.getId());
+        filmService.addLike(first.getId(), reader.getId());
+
+        Page<FeedEvent> page = userService.getFeed(reader.getId(), null, 1);
+        assertEquals(List.of(second.getId()), entityIds(page));
+        assertNotNull(page.getNextCursor());
+
+        page = userService.getFeed(reader.getId(), page.getNextCursor(), 10);
+        assertEquals(List.of(first.getId()), entityIds(page));
+        assertNull(page.getNextCursor());
+        assertTrue(userService.getFeed(author.getId(), null, 10).getItems().isEmpty());
+
+        userService.deleteFriend(reader.getId(), author.getId());
+        assertTrue(userService.getFeed(reader.getId(), null, 10).getItems().isEmpty());
+    }
+
+    @Test
+    public void testHighDegreeAuthorIsMergedOnRead() {
+        User author = userService.create(newUser("star"));
+        User firstFan = userService.create(newUser("fan1"));
+        User secondFan = userService.create(newUser("fan2"));
+        User friend = userService.create(newUser("friend"));
+        userService.addFriend(firstFan.getId(), author.getId());
+        userService.addFriend(secondFan.getId(), author.getId());
+        userService.addFriend(firstFan.getId(), friend.getId());
+
+        List<Film> films = List.of(filmService.create(newFilm("А")), filmService.create(newFilm("Б")),
+                filmService.create(newFilm("В")), filmService.create(newFilm("Г")));
+        filmService.addLike(films.get(0).getId(), author.getId());
+        filmService.addLike(films.get(1).getId(), friend.getId());
+        filmService.addLike(films.get(2).getId(), author.getId());
+        filmService.addLike(films.get(3).getId(), author.getId());
+
+        assertEquals(List.of(films.get(3).getId(), films.get(2).getId(), films.get(1).getId(), films.get(0).getId()),
+                entityIds(userService.getFeed(firstFan.getId(), null, 10)));
+        assertEquals(List.of(films.get(3).getId(), films.get(2).getId(), films.get(0).getId()),
+                entityIds(userService.getFeed(secondFan.getId(), null, 10)));
+
+        userService.deleteFriend(secondFan.getId(), author.getId());
+        assertTrue(userService.getFeed(secondFan.getId(), null, 10).getItems().isEmpty());
+    }
+
+    private static List<Long> entityIds(Page<FeedEvent> page) {
+        return page.getItems().stream()
+                .map(FeedEvent::getEntityId)
+                .collect(Collectors.toList());
+    }
+
+    private static User newUser(String login) {
+        return User.builder()
+                .email(login + "@mail.ru")
+                .login(login)
+                .name(login)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+
+    private static Film newFilm(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Описание")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(90)
+                .mpa(Mpa.builder().id(1).build())
+                .build();
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.storage.film.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class QueryPlanTests {
+    private static final String TABLE_SCAN = ".tableScan";
+    private static final String TIMESTAMP = "2000-01-01 00:00:00";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    static Stream<Arguments> indexedQueries() {
+        return Stream.of(
+                Arguments.of("FilmDbStorage.findPage", FilmDbStorage.FIND_PAGE_QUERY, List.of(0, 10)),
+                Arguments.of("FilmDbStorage.getFilm", FilmDbStorage.GET_FILM_QUERY, List.of(1)),
+                Arguments.of("FilmDbStorage.findByIds", FilmDbStorage.findByIdsQuery(3), List.of(1, 2, 3)),
+                Arguments.of("FilmDbStorage.update", FilmDbStorage.UPDATE_QUERY,
+                        List.of("t", "d", "2000-01-01", 1, 1, 1)),
+                Arguments.of("FilmDbStorage.updateGenres", FilmDbStorage.DELETE_GENRES_QUERY, List.of(1)),
+                Arguments.of("GenreDbStorage.getFilmGenresById", GenreDbStorage.FILM_GENRES_BY_ID_QUERY, List.of(1)),
+                Arguments.of("GenreDbStorage.getFilmGenres", GenreDbStorage.filmGenresQuery(2), List.of(1, 2)),
+                Arguments.of("LikeDbStorage.addLikes", LikeDbStorage.ADD_LIKES_QUERY,
+                        List.of(1, 1, TIMESTAMP, 1, 1)),
+                Arguments.of("LikeDbStorage.deleteLike", LikeDbStorage.DELETE_LIKE_QUERY, List.of(1, 1)),
+                Arguments.of("LikeDbStorage.deleteLikes", LikeDbStorage.DELETE_LIKES_QUERY, List.of(1, 1)),
+                Arguments.of("LikeDbStorage.findRecentLikedAt", LikeDbStorage.likedAtQuery(2),
+                        List.of(1, 2, 1, 1, 2, 2)),
+                Arguments.of("LikeDbStorage.loadTrends", LikeDbStorage.LOAD_TRENDS_QUERY, List.of(TIMESTAMP)),
+                Arguments.of("likes by user_id",
+                        "SELECT film_id FROM likes WHERE user_id = ?", List.of(1)),
+                Arguments.of("movie_genres by genre_id",
+                        "SELECT film_id FROM movie_genres WHERE genre_id = ?", List.of(1))
+        );
+    }
+
+    static Stream<Arguments> fullReadQueries() {
+        return Stream.of(
+                Arguments.of("FilmDbStorage.loadIndexes", FilmDbStorage.LOAD_INDEXES_QUERY, "LIKES"),
+                Arguments.of("FilmDbStorage.streamAll", FilmDbStorage.STREAM_ALL_QUERY, "MOVIE_GENRES")
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("indexedQueries")
+    public void testQueryDoesNotScanTables(String name, String sql, List<Object> args) {
+        String plan = explain(sql, args);
+
+        assertFalse(plan.contains(TABLE_SCAN), name + ": " + plan);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("fullReadQueries")
+    public void testJoinedTableIsReadByIndex(String name, String sql, String joinedTable) {
+        String plan = explain(sql, List.of());
+
+        assertTrue(plan.contains(joinedTable), name + ": " + plan);
+        assertFalse(plan.contains(joinedTable + TABLE_SCAN), name + ": " + plan);
+    }
+
+    @Test
+    public void testLikedAtLookupUsesPrimaryKey() {
+        String plan = explain(LikeDbStorage.likedAtQuery(2), List.of(1, 2, 1, 1, 2, 2));
+
+        assertFalse(plan.toLowerCase().contains("likes_liked_at_idx"), plan);
+    }
+
+    @Test
+    public void testLookupIndexesAreMigrated() {
+        List<String> indexes = jdbcTemplate.queryForList("SELECT LOWER(index_name) FROM information_schema.indexes " +
+                "WHERE table_schema = 'PUBLIC'", String.class);
+
+        assertTrue(indexes.containsAll(List.of("friends_friend_id_user_id_idx", "likes_user_id_film_id_idx",
+                "movie_genres_genre_id_film_id_idx", "likes_liked_at_idx")), indexes.toString());
+    }
+
+    private String explain(String sql, List<Object> args) {
+        return jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, args.toArray()).stream()
+                .collect(Collectors.joining("\n"));
+    }
+}
@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.storage.user.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@JdbcTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class UserQueryPlanTests {
+    private static final String TABLE_SCAN = ".tableScan";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    static Stream<Arguments> indexedQueries() {
+        return Stream.of(
+                Arguments.of("UserDbStorage.findPage", UserDbStorage.FIND_PAGE_QUERY, List.of(0, 10)),
+                Arguments.of("UserDbStorage.findByIds", UserDbStorage.findByIdsQuery(2), List.of(1, 2)),
+                Arguments.of("FriendDbStorage.deleteFriend", FriendDbStorage.DELETE_FRIEND_QUERY, List.of(1, 2)),
+                Arguments.of("FriendDbStorage.findFriends", FriendDbStorage.FIND_FRIENDS_QUERY, List.of(1)),
+                Arguments.of("FriendDbStorage.findCommonFriends", FriendDbStorage.FIND_COMMON_FRIENDS_QUERY,
+                        List.of(1, 2)),
+                Arguments.of("FriendDbStorage.findFollowerIds", FriendDbStorage.FIND_FOLLOWER_IDS_QUERY,
+                        List.of(1, 10))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("indexedQueries")
+    public void testQueryDoesNotScanTables(String name, String sql, List<Object> args) {
+        String plan = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, args.toArray()).stream()
+                .collect(Collectors.joining("\n"));
+
+        assertFalse(plan.contains(TABLE_SCAN), name + ": " + plan);
+    }
+}